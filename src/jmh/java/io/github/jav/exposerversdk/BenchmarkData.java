@@ -0,0 +1,85 @@
+package io.github.jav.exposerversdk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Realistic inputs shared by the benchmarks: tokens in the shape Expo hands out and messages with
+ * {@code data} maps of a given size.
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static String token(int i) {
+        // 22 characters between the brackets, like real tokens.
+        return String.format("ExponentPushToken[%022d]", i);
+    }
+
+    static List<String> tokens(int count) {
+        List<String> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            tokens.add(token(i));
+        return tokens;
+    }
+
+    static ExpoPushMessage message(List<String> to, int dataEntries) {
+        ExpoPushMessage message = new ExpoPushMessage(to);
+        message.title = "Spring sale";
+        message.body = "Everything in the store is 20% off until Sunday, tap to see the offers";
+        message.channelId = "offers";
+        Map<String, String> data = new HashMap<>();
+        for (int i = 0; i < dataEntries; i++)
+            data.put("key" + i, "value-" + i + "-" + UUID.nameUUIDFromBytes(new byte[]{(byte) i}));
+        message.data = data;
+        return message;
+    }
+
+    static List<ExpoPushMessage> chunk(int dataEntries) {
+        List<ExpoPushMessage> chunk = new ArrayList<>();
+        for (int i = 0; i < PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT; i++) {
+            List<String> to = new ArrayList<>();
+            to.add(token(i));
+            chunk.add(message(to, dataEntries));
+        }
+        return chunk;
+    }
+
+    /**
+     * @return a /push/send response with one ticket per recipient, every tenth an error
+     */
+    static byte[] ticketsResponse(int count) {
+        StringBuilder json = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                json.append(',');
+            if (i % 10 == 9)
+                json.append("{\"status\":\"error\",\"message\":\"\\\"").append(token(i))
+                        .append("\\\" is not a registered push notification recipient\",\"details\":{\"error\":\"DeviceNotRegistered\"}}");
+            else
+                json.append("{\"status\":\"ok\",\"id\":\"").append(UUID.randomUUID()).append("\"}");
+        }
+        return json.append("]}").toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a /push/getReceipts response with {@code count} receipts, every tenth an error
+     */
+    static byte[] receiptsResponse(int count) {
+        StringBuilder json = new StringBuilder("{\"data\":{");
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                json.append(',');
+            json.append('"').append(UUID.randomUUID()).append("\":");
+            if (i % 10 == 9)
+                json.append("{\"status\":\"error\",\"message\":\"The device cannot receive push notifications anymore\","
+                        + "\"details\":{\"error\":\"DeviceNotRegistered\"}}");
+            else
+                json.append("{\"status\":\"ok\"}");
+        }
+        return json.append("}}").toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+}
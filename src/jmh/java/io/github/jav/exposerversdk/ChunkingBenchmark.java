@@ -0,0 +1,97 @@
+package io.github.jav.exposerversdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting one broadcast message with many recipients into chunks. {@code copyingChunker} is the chunker as it
+ * was before slices became views over the original recipient list, {@code byteLimitedChunker} also keeps
+ * every chunk under a size limit, which depends on the size of the {@code data} map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkingBenchmark {
+    @Param({"1", "100", "10000", "1000000"})
+    public int recipients;
+
+    @Param({"2", "50"})
+    public int dataEntries;
+
+    private List<ExpoPushMessage> messages;
+    private PushClient client;
+    private PushClient byteLimitedClient;
+
+    @Setup
+    public void setup() {
+        messages = Collections.singletonList(BenchmarkData.message(BenchmarkData.tokens(recipients), dataEntries));
+        client = new PushClient((url, json) -> null);
+        byteLimitedClient = new PushClient((url, json) -> null);
+        byteLimitedClient.setMaxChunkBytes(16 * 1024);
+    }
+
+    @Benchmark
+    public List<List<ExpoPushMessage>> slicingChunker() {
+        return client.chunkPushNotifications(messages);
+    }
+
+    @Benchmark
+    public List<List<ExpoPushMessage>> byteLimitedChunker() {
+        return byteLimitedClient.chunkPushNotifications(messages);
+    }
+
+    @Benchmark
+    public List<List<ExpoPushMessage>> copyingChunker() {
+        List<List<ExpoPushMessage>> chunks = new ArrayList<>();
+        List<ExpoPushMessage> chunk = new ArrayList<>();
+
+        long chunkMessagesCount = 0;
+        for (ExpoPushMessage message : messages) {
+            List<String> partialTo = new ArrayList<>();
+            for (String recipient : message.to) {
+                if (recipient.length() <= 0) continue;
+                partialTo.add(recipient);
+                chunkMessagesCount++;
+                if (chunkMessagesCount >= PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT) {
+                    chunk.add(new ExpoPushMessage(partialTo, message));
+                    chunks.add(chunk);
+                    chunk = new ArrayList<>();
+                    chunkMessagesCount = 0;
+                    partialTo = new ArrayList<>();
+                }
+            }
+
+            if (!partialTo.isEmpty()) {
+                chunk.add(new ExpoPushMessage(partialTo, message));
+            }
+
+            if (chunkMessagesCount >= PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkMessagesCount = 0;
+            }
+        }
+
+        if (chunkMessagesCount > 0) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
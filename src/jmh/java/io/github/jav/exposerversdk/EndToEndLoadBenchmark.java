@@ -0,0 +1,77 @@
+package io.github.jav.exposerversdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the whole send path: {@link PushClient} serializes a full chunk, a transport posts it to a
+ * {@link MockExpoPushServer} on this machine and the tickets are parsed. Sampling reports the latency
+ * percentiles seen by 16 concurrent senders; run with {@code -bm thrpt} for chunks per second instead.
+ * <p>
+ * {@code httpclient} needs Java 11 and the {@code java11} profile, which is active on such JDKs.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class EndToEndLoadBenchmark {
+    @Param({"default", "httpclient"})
+    public String transport;
+
+    @Param({"0", "20"})
+    public int serverLatencyMillis;
+
+    private MockExpoPushServer server;
+    private PushServerResolver resolver;
+    private PushClient client;
+    private List<ExpoPushMessage> chunk;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new MockExpoPushServer();
+        server.setLatency(Duration.ofMillis(serverLatencyMillis), Duration.ofMillis(serverLatencyMillis / 2));
+        if ("httpclient".equals(transport)) {
+            // Loaded reflectively, the benchmarks are compiled for Java 8.
+            resolver = (PushServerResolver) Class.forName("io.github.jav.exposerversdk.HttpClientPushServerResolver")
+                    .getConstructor().newInstance();
+        } else {
+            resolver = new DefaultPushServerResolver();
+        }
+        client = new PushClient(resolver);
+        client.setBaseApiUrl(server.getBaseApiUrl());
+        chunk = BenchmarkData.chunk(2);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (resolver instanceof AutoCloseable)
+            ((AutoCloseable) resolver).close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<ExpoPushTicket> sendChunk() {
+        List<ExpoPushTicket> tickets = client.sendPushNotificationsAsync(chunk).join();
+        if (tickets.size() != chunk.size())
+            throw new IllegalStateException("Expected " + chunk.size() + " tickets, got " + tickets.size());
+        return tickets;
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.jav.exposerversdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the response to a full chunk of notifications and to a full chunk of receipt ids.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+    private byte[] tickets;
+    private byte[] receipts;
+    private PushClient client;
+
+    @Setup
+    public void setup() {
+        tickets = BenchmarkData.ticketsResponse((int) PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT);
+        receipts = BenchmarkData.receiptsResponse((int) PushClient.PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT);
+        client = new PushClient((url, json) -> null);
+    }
+
+    @Benchmark
+    public List<ExpoPushTicket> tickets() throws IOException {
+        return client._parseTickets(new ByteArrayInputStream(tickets));
+    }
+
+    @Benchmark
+    public List<ExpoPushReceiept> receipts() throws IOException {
+        return client._parseReceipts(new ByteArrayInputStream(receipts));
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-chunk JSON cost of {@link PushClient#sendPushNotificationsAsync(List)}: serializing a full chunk of
+ * messages and parsing the matching tickets. {@code freshObjectMapper} replays what the client did before it
+ * held on to its readers and writers. Run with {@code -prof gc} to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PushClientJsonBenchmark {
+    private List<ExpoPushMessage> chunk;
+    private String ticketsJson;
+    private PushClient client;
+
+    @Setup
+    public void setup() {
+        chunk = new ArrayList<>();
+        StringBuilder tickets = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT; i++) {
+            ExpoPushMessage message = new ExpoPushMessage("ExponentPushToken[" + i + "xxxxxxxxxxxxxxxxxxx]");
+            message.title = "Title " + i;
+            message.body = "A notification body that is about as long as the ones we send";
+            Map<String, String> data = new HashMap<>();
+            data.put("campaign", "spring-sale");
+            data.put("deeplink", "app://offers/" + i);
+            message.data = data;
+            chunk.add(message);
+            if (i > 0)
+                tickets.append(',');
+            tickets.append("{\"status\":\"ok\",\"id\":\"2011eb6d-d4d3-440c-a93c-37ac4b51ea").append(String.format("%02d", i)).append("\"}");
+        }
+        ticketsJson = tickets.append("]}").toString();
+
+        String response = ticketsJson;
+        client = new PushClient((URL url, String json) -> CompletableFuture.completedFuture(response));
+    }
+
+    @Benchmark
+    public List<ExpoPushTicket> sharedReadersAndWriters() {
+        return client.sendPushNotificationsAsync(chunk).join();
+    }
+
+    @Benchmark
+    public List<ExpoPushTicket> freshObjectMapper() throws IOException {
+        String json = new ObjectMapper().writeValueAsString(chunk);
+        if (json.isEmpty())
+            throw new IllegalStateException();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode dataNode = mapper.readTree(ticketsJson).get("data");
+        List<ExpoPushTicket> retList = new ArrayList<>();
+        for (JsonNode node : dataNode) {
+            retList.add(mapper.convertValue(node, ExpoPushTicket.class));
+        }
+        return retList;
+    }
+}
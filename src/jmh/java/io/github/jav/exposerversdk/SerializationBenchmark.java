@@ -0,0 +1,71 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a full chunk of messages through {@link ExpoPushMessage#serialize}, the way
+ * {@link PushClient#sendPushNotificationsAsync(List)} writes a request body.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"2", "50"})
+    public int dataEntries;
+
+    private List<ExpoPushMessage> chunk;
+    private ExpoPushMessage message;
+    private ObjectWriter messagesWriter;
+    private ObjectWriter messageWriter;
+    private PushClient client;
+
+    @Setup
+    public void setup() {
+        chunk = BenchmarkData.chunk(dataEntries);
+        message = chunk.get(0);
+        client = new PushClient((url, json) -> null);
+        messagesWriter = client.getObjectMapper().writerFor(new TypeReference<List<ExpoPushMessage>>() {
+        });
+        messageWriter = client.getObjectMapper().writerFor(ExpoPushMessage.class);
+    }
+
+    @Benchmark
+    public ByteArrayBuffer chunkToBytes() throws IOException {
+        ByteArrayBuffer body = new ByteArrayBuffer();
+        messagesWriter.writeValue(body, chunk);
+        return body;
+    }
+
+    @Benchmark
+    public String messageToString() throws IOException {
+        return messageWriter.writeValueAsString(message);
+    }
+
+    /**
+     * The encoded size of a message without its recipients, computed for every message when chunking
+     * with a byte limit.
+     */
+    @Benchmark
+    public long encodedPayloadSize() {
+        return client._encodedPayloadSize(message);
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.jav.exposerversdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating a whole audience at once with {@link PushClient#partitionExponentPushTokens}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenPartitionBenchmark {
+    @Param({"1000", "1000000"})
+    public int tokens;
+
+    private List<String> audience;
+
+    @Setup
+    public void setup() {
+        audience = BenchmarkData.tokens(tokens);
+        // Every hundredth token is malformed.
+        for (int i = 99; i < tokens; i += 100)
+            audience.set(i, "ExponentPushToken[" + i);
+    }
+
+    @Benchmark
+    public Map<Boolean, List<String>> partition() {
+        return PushClient.partitionExponentPushTokens(audience);
+    }
+}
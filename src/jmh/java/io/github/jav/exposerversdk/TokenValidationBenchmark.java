@@ -0,0 +1,59 @@
+package io.github.jav.exposerversdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PushClient#isExponentPushToken(String)} against {@code regexValidator}, the implementation it
+ * replaced, for each shape of token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenValidationBenchmark {
+    @Param({"ExponentPushToken[xxxxxxxxxxxxxxxxxxxxxx]", "F5741A13-BCDA-434B-A316-5DC0E6FFA94F", "not a token"})
+    public String token;
+
+    @Setup
+    public void setup() {
+        if (isExponentPushTokenWithRegex(token) != PushClient.isExponentPushToken(token))
+            throw new IllegalStateException("Validators disagree on " + token);
+    }
+
+    @Benchmark
+    public boolean scanningValidator() {
+        return PushClient.isExponentPushToken(token);
+    }
+
+    @Benchmark
+    public boolean regexValidator() {
+        return isExponentPushTokenWithRegex(token);
+    }
+
+    static boolean isExponentPushTokenWithRegex(String token) {
+        String prefixA = "ExponentPushToken[";
+        String prefixB = "ExpoPushToken[";
+        String postfix = "]";
+        String regex = "[a-zA-Z0-9]{8}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{12}";
+
+        if (token.matches(regex)) return true;
+        if (!token.endsWith(postfix)) return false;
+        if (token.startsWith(prefixA)) return true;
+        if (token.startsWith(prefixB)) return true;
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.jav.exposerversdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link ByteArrayOutputStream} whose content can be read back without copying the backing array.
+ */
+class ByteArrayBuffer extends ByteArrayOutputStream {
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    ByteArrayBuffer() {
+        super(READ_BUFFER_SIZE);
+    }
+
+    ByteArrayBuffer(int size) {
+        super(size);
+    }
+
+    static ByteArrayBuffer readFully(InputStream in) throws IOException {
+        ByteArrayBuffer buffer = new ByteArrayBuffer();
+        buffer.readFrom(in);
+        return buffer;
+    }
+
+    /**
+     * Appends everything left in {@code in}, reading directly into the backing array.
+     */
+    void readFrom(InputStream in) throws IOException {
+        while (true) {
+            if (count == buf.length)
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            int read = in.read(buf, count, buf.length - count);
+            if (read == -1)
+                return;
+            count += read;
+        }
+    }
+
+    /**
+     * @return a view of the written bytes, sharing the backing array
+     */
+    ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    /**
+     * Writes the remaining bytes of {@code body} without moving its position.
+     */
+    static void write(ByteBuffer body, OutputStream out) throws IOException {
+        if (body.hasArray()) {
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+            return;
+        }
+        ByteBuffer source = body.duplicate();
+        byte[] chunk = new byte[Math.min(source.remaining(), READ_BUFFER_SIZE)];
+        while (source.hasRemaining()) {
+            int length = Math.min(source.remaining(), chunk.length);
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    InputStream toInputStream() {
+        return new ByteArrayInputStream(buf, 0, count);
+    }
+
+    String toUtf8String() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.jav.exposerversdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Guards a resolver with a {@link PushCircuitBreaker}. While the breaker is open, requests fail right away
+ * with a {@link PushCircuitOpenException} instead of being sent.
+ * <p>
+ * Throttling ({@code 429}), server errors, timeouts and transport errors count as failures. Other error
+ * statuses mean the request was wrong, not the server, and count as successes; cancelled requests are not
+ * counted. Put a {@link RetryingPushServerResolver} outside this resolver so every attempt is counted.
+ */
+public class CircuitBreakerPushServerResolver implements StreamingPushServerResolver, AutoCloseable {
+    private final StreamingPushServerResolver pushServerResolver;
+    private final PushCircuitBreaker circuitBreaker;
+
+    public CircuitBreakerPushServerResolver(PushServerResolver _pushServerResolver) {
+        this(_pushServerResolver, new PushCircuitBreaker());
+    }
+
+    /**
+     * @param _circuitBreaker the breaker, which may also guard other resolvers for the same server
+     */
+    public CircuitBreakerPushServerResolver(PushServerResolver _pushServerResolver, PushCircuitBreaker _circuitBreaker) {
+        pushServerResolver = PushServerResolverAdapter.adapt(_pushServerResolver);
+        circuitBreaker = _circuitBreaker;
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(URL url, String json) {
+        return _guarded(() -> pushServerResolver.postAsync(url, json));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, ByteBuffer body) {
+        return _guarded(() -> pushServerResolver.postAsyncStreaming(url, body));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, String json) {
+        return _guarded(() -> pushServerResolver.postAsyncStreaming(url, json));
+    }
+
+    private <T> CompletableFuture<T> _guarded(Supplier<CompletableFuture<T>> request) {
+        long permit = circuitBreaker.acquirePermit();
+        if (permit == PushCircuitBreaker.NO_PERMIT) {
+            CompletableFuture<T> retCompletableFuture = new CompletableFuture<>();
+            retCompletableFuture.completeExceptionally(new PushCircuitOpenException(circuitBreaker.getState()));
+            return retCompletableFuture;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(permit, System.nanoTime() - start);
+            throw e;
+        }
+        if (response == null) {
+            circuitBreaker.onError(permit, System.nanoTime() - start);
+            return null;
+        }
+        response.whenComplete((value, e) -> {
+            long duration = System.nanoTime() - start;
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null || (cause instanceof PushServerException && !((PushServerException) cause).isRetryable()))
+                circuitBreaker.onSuccess(permit, duration);
+            else if (cause instanceof CancellationException)
+                circuitBreaker.release(permit);
+            else
+                circuitBreaker.onError(permit, duration);
+        });
+        return response;
+    }
+
+    public PushCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public StreamingPushServerResolver getPushServerResolver() {
+        return pushServerResolver;
+    }
+
+    /**
+     * Closes the wrapped resolver if it can be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        PushServerResolverAdapter.closeIfCloseable(pushServerResolver);
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.jav.exposerversdk;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Cancellation of a {@link CompletableFuture} does not reach the futures it was derived from. These helpers
+ * pass it on, so cancelling the future handed to a caller aborts the request behind it.
+ */
+final class CompletableFutures {
+    private CompletableFutures() {
+    }
+
+    /**
+     * Cancels {@code source} when {@code dependent} is cancelled.
+     *
+     * @return {@code dependent}
+     */
+    static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> dependent, Future<?> source) {
+        dependent.whenComplete((value, e) -> {
+            if (dependent.isCancelled())
+                source.cancel(true);
+        });
+        return dependent;
+    }
+
+    /**
+     * Like {@code first.thenCompose(v -> next.get())}, except that cancelling the returned future cancels
+     * whichever of the two is running, and {@code next} is not called once the returned future is done.
+     * A null future from {@code next} completes the returned future with null.
+     */
+    static <T> CompletableFuture<T> composeCancellable(CompletableFuture<?> first, Supplier<CompletableFuture<T>> next) {
+        CompletableFuture<T> retCompletableFuture = new CompletableFuture<>();
+        first.whenComplete((ignored, e) -> {
+            if (e != null) {
+                retCompletableFuture.completeExceptionally(e);
+                return;
+            }
+            if (retCompletableFuture.isDone())
+                return;
+            CompletableFuture<T> second;
+            try {
+                second = next.get();
+            } catch (RuntimeException thrown) {
+                retCompletableFuture.completeExceptionally(thrown);
+                return;
+            }
+            if (second == null) {
+                retCompletableFuture.complete(null);
+                return;
+            }
+            propagateCancellation(retCompletableFuture, second);
+            second.whenComplete((value, secondException) -> {
+                if (secondException != null)
+                    retCompletableFuture.completeExceptionally(secondException);
+                else
+                    retCompletableFuture.complete(value);
+            });
+        });
+        return propagateCancellation(retCompletableFuture, first);
+    }
+}
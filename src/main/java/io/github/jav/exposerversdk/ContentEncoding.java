@@ -0,0 +1,39 @@
+package io.github.jav.exposerversdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The {@code Content-Encoding}s the resolvers send and accept.
+ */
+final class ContentEncoding {
+    static final String GZIP = "gzip";
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * @return a stream of the decoded body, {@code in} itself if the body is not encoded
+     * @throws IOException if the encoding is not one of {@link #ACCEPT_ENCODING}
+     */
+    static InputStream decode(String contentEncoding, InputStream in) throws IOException {
+        if (contentEncoding == null)
+            return in;
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "":
+            case "identity":
+                return in;
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in);
+            case "deflate":
+                return new InflaterInputStream(in);
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+    }
+}
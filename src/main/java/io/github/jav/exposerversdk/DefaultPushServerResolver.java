@@ -1,44 +1,324 @@
 package io.github.jav.exposerversdk;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Posts requests with {@link HttpURLConnection} on a bounded pool of worker threads that is shared by
+ * every request made through this resolver. Call {@link #close()} when the resolver is no longer needed.
+ * <p>
+ * Every request is bounded by a connect timeout, a read timeout and a deadline for the whole request.
+ * When one of them expires, or the returned future is cancelled, the connection is dropped and the worker
+ * thread is released.
+ * <p>
+ * Compressed responses are decoded transparently. Request bodies are sent as they are unless a
+ * {@link #setCompressionThreshold(int) compression threshold} is set.
+ */
+public class DefaultPushServerResolver implements StreamingPushServerResolver, AutoCloseable {
+    public static final int DEFAULT_MAX_THREADS = 16;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int NO_COMPRESSION = -1;
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final AtomicInteger RESOLVER_COUNT = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+    private volatile int compressionThreshold = NO_COMPRESSION;
+    private volatile Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private volatile Duration readTimeout = DEFAULT_READ_TIMEOUT;
+    private volatile Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    private volatile PushClientMetrics metrics = PushClientMetrics.NOOP;
+
+    public DefaultPushServerResolver() {
+        this(DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param maxThreads    the maximum number of requests that are in flight at the same time
+     * @param queueCapacity the maximum number of requests waiting for a free thread, further requests are rejected
+     */
+    public DefaultPushServerResolver(int maxThreads, int queueCapacity) {
+        if (maxThreads <= 0 || queueCapacity <= 0)
+            throw new IllegalArgumentException();
+        executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new DaemonThreadFactory("expo-push-resolver-" + RESOLVER_COUNT.incrementAndGet()));
+        // Let an idle resolver shrink back to zero threads.
+        executor.allowCoreThreadTimeOut(true);
+    }
 
-public class DefaultPushServerResolver implements PushServerResolver {
     public CompletableFuture<String> postAsync(URL url, String json) {
+        CompletableFuture<ByteArrayBuffer> response = _post(url, ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        return CompletableFutures.propagateCancellation(response.thenApply(ByteArrayBuffer::toUtf8String), response);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, ByteBuffer body) {
+        CompletableFuture<ByteArrayBuffer> response = _post(url, body);
+        return CompletableFutures.propagateCancellation(response.thenApply(ByteArrayBuffer::toInputStream), response);
+    }
 
-        CompletableFuture<String> retCompletableFuture
+    private CompletableFuture<ByteArrayBuffer> _post(URL url, ByteBuffer requestBody) {
+
+        CompletableFuture<ByteArrayBuffer> retCompletableFuture
                 = new CompletableFuture<>();
+        // The connection of the request once it has been opened, so it can be dropped from another thread.
+        AtomicReference<HttpURLConnection> connection = new AtomicReference<>();
+
+        try {
+            executor.submit(() -> {
+                // Timed out or cancelled while waiting for a worker.
+                if (retCompletableFuture.isDone())
+                    return;
+                try {
+                    retCompletableFuture.complete(_send(url, requestBody, connection, retCompletableFuture));
+                } catch (Throwable e) {
+                    retCompletableFuture.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            retCompletableFuture.completeExceptionally(e);
+            return retCompletableFuture;
+        }
+
+        Duration deadline = requestTimeout;
+        if (!deadline.isZero()) {
+            ScheduledFuture<?> timeout = TimeoutScheduler.INSTANCE.schedule(
+                    () -> retCompletableFuture.completeExceptionally(
+                            new TimeoutException("No response from " + url + " within " + deadline)),
+                    deadline.toNanos(), TimeUnit.NANOSECONDS);
+            retCompletableFuture.whenComplete((response, e) -> timeout.cancel(false));
+        }
+        retCompletableFuture.whenComplete((response, e) -> {
+            if (e != null)
+                _disconnect(connection);
+        });
+        return retCompletableFuture;
+    }
+
+    private static void _disconnect(AtomicReference<HttpURLConnection> connection) {
+        HttpURLConnection urlConnection = connection.get();
+        if (urlConnection != null)
+            urlConnection.disconnect();
+    }
 
-        Executors.newCachedThreadPool().submit(() -> {
-            HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+    private ByteArrayBuffer _send(URL url, ByteBuffer requestBody, AtomicReference<HttpURLConnection> connection,
+                                  CompletableFuture<?> request) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        try {
+            urlConnection.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, connectTimeout.toMillis()));
+            urlConnection.setReadTimeout((int) Math.min(Integer.MAX_VALUE, readTimeout.toMillis()));
             urlConnection.setRequestMethod("POST");
             urlConnection.setRequestProperty("Content-Type", "application/json");
             urlConnection.setRequestProperty("Accept", "application/json");
+            urlConnection.setRequestProperty("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
             urlConnection.setDoOutput(true);
 
-            try (OutputStream os = urlConnection.getOutputStream()) {
-                byte[] input = json.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
+            int threshold = compressionThreshold;
+            boolean compress = threshold != NO_COMPRESSION && requestBody.remaining() >= threshold;
+            if (compress) {
+                // Compress while writing, the compressed length is not known up front.
+                urlConnection.setRequestProperty("Content-Encoding", ContentEncoding.GZIP);
+                urlConnection.setChunkedStreamingMode(0);
+            } else {
+                // The length is known up front, stream the body instead of letting the connection buffer a copy.
+                urlConnection.setFixedLengthStreamingMode(requestBody.remaining());
             }
 
-            StringBuilder sb = new StringBuilder();
-            try (BufferedReader in = new BufferedReader(new InputStreamReader(urlConnection.getInputStream()))) {
-                String inputLine;
-                while ((inputLine = in.readLine()) != null)
-                    sb.append(inputLine);
-            } finally {
-                urlConnection.disconnect();
-                retCompletableFuture.complete(sb.toString());
+            // Publish the connection once disconnecting it closes the socket. If the request ended before
+            // that, nobody else will disconnect it.
+            urlConnection.connect();
+            connection.set(urlConnection);
+            if (request.isDone())
+                throw new IOException("Request to " + url + " was aborted");
+
+            try (OutputStream os = compress
+                    ? new GZIPOutputStream(urlConnection.getOutputStream(), GZIP_BUFFER_SIZE)
+                    : urlConnection.getOutputStream()) {
+                ByteArrayBuffer.write(requestBody, os);
             }
-            return null;
-        });
-        return retCompletableFuture;
+
+            int statusCode = urlConnection.getResponseCode();
+            metrics.responseReceived(PushClientMetrics.endpoint(url), statusCode, System.nanoTime() - start);
+            if (statusCode / 100 != 2) {
+                String errorBody = null;
+                InputStream err = urlConnection.getErrorStream();
+                if (err != null) {
+                    try (InputStream in = ContentEncoding.decode(urlConnection.getContentEncoding(), err)) {
+                        errorBody = ByteArrayBuffer.readFully(in).toUtf8String();
+                    }
+                }
+                throw new PushServerException(statusCode,
+                        PushServerException.parseRetryAfter(urlConnection.getHeaderField("Retry-After")), errorBody);
+            }
+
+            try (InputStream in = ContentEncoding.decode(urlConnection.getContentEncoding(), urlConnection.getInputStream())) {
+                return ByteArrayBuffer.readFully(in);
+            }
+        } finally {
+            urlConnection.disconnect();
+        }
+    }
+
+    /**
+     * @return the number of worker threads currently alive
+     */
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * @return the number of worker threads currently executing a request
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getMaxThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * @return the number of requests waiting for a free worker thread
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueRemainingCapacity() {
+        return executor.getQueue().remainingCapacity();
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Compresses request bodies of at least {@code _compressionThreshold} bytes with gzip. Small bodies are
+     * sent as they are, compressing them costs more than it saves.
+     *
+     * @param _compressionThreshold the size in bytes, or {@link #NO_COMPRESSION} to never compress
+     */
+    public void setCompressionThreshold(int _compressionThreshold) {
+        if (_compressionThreshold < 0 && _compressionThreshold != NO_COMPRESSION)
+            throw new IllegalArgumentException();
+        compressionThreshold = _compressionThreshold;
+    }
+
+    public PushClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param _metrics receives the status code and latency of every response
+     */
+    public void setMetrics(PushClientMetrics _metrics) {
+        metrics = _metrics == null ? PushClientMetrics.NOOP : _metrics;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param _connectTimeout how long to wait for a connection, {@link Duration#ZERO} to wait forever
+     */
+    public void setConnectTimeout(Duration _connectTimeout) {
+        connectTimeout = _checkTimeout(_connectTimeout);
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param _readTimeout how long to wait for the server to send data, {@link Duration#ZERO} to wait forever
+     */
+    public void setReadTimeout(Duration _readTimeout) {
+        readTimeout = _checkTimeout(_readTimeout);
     }
 
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * @param _requestTimeout the deadline for a whole request, including the time it waits for a worker thread,
+     *                        {@link Duration#ZERO} for no deadline. An expired request fails with a {@link TimeoutException}.
+     */
+    public void setRequestTimeout(Duration _requestTimeout) {
+        requestTimeout = _checkTimeout(_requestTimeout);
+    }
+
+    private static Duration _checkTimeout(Duration timeout) {
+        if (timeout == null || timeout.isNegative())
+            throw new IllegalArgumentException();
+        return timeout;
+    }
+
+    public boolean isClosed() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * Stops accepting new requests. Requests already submitted are allowed to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Enforces the request deadlines of every resolver on one daemon thread, created on first use.
+     */
+    private static class TimeoutScheduler {
+        static final ScheduledThreadPoolExecutor INSTANCE = _create();
+
+        private static ScheduledThreadPoolExecutor _create() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                    new DaemonThreadFactory("expo-push-resolver-timeout"));
+            // Most requests finish in time, don't keep their timeouts queued until they would have fired.
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    static class DaemonThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        DaemonThreadFactory(String _namePrefix) {
+            namePrefix = _namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, namePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import java.io.IOException;
 
@@ -84,6 +86,34 @@ public class ExpoMessageSound implements JsonSerializable {
         jsonGenerator.writeNull();
     }
 
+    @Override
+    public boolean equals(Object _o) {
+        if (_o == null)
+            return false;
+
+        if (_o == this)
+            return true;
+
+        if (_o.getClass() != getClass())
+            return false;
+
+        ExpoMessageSound o = (ExpoMessageSound) _o;
+        return new EqualsBuilder().
+                append(critical, o.critical).
+                append(name, o.name).
+                append(volume, o.volume).
+                isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder().
+                append(critical).
+                append(name).
+                append(volume).
+                toHashCode();
+    }
+
     @Override
     public void serializeWithType(JsonGenerator jsonGenerator, SerializerProvider serializerProvider, TypeSerializer typeSerializer) {
         throw new UnsupportedOperationException("serializeWithType() not implemented.");
@@ -0,0 +1,158 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+
+/**
+ * A ticket or receipt id packed into two longs. Expo hands out ids as lower case UUIDs, which take about a
+ * hundred bytes each as {@code String}s; packed they take 16 bytes in an {@link ExpoPushIdList}, or 32 as an
+ * object. Only ids in that canonical form can be packed, so that {@link #toString()} gives back the exact id.
+ */
+@JsonSerialize(using = ExpoPushId.Serializer.class)
+@JsonDeserialize(using = ExpoPushId.Deserializer.class)
+public final class ExpoPushId {
+    static final int LENGTH = 36;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final long mostSigBits;
+    private final long leastSigBits;
+
+    public ExpoPushId(long _mostSigBits, long _leastSigBits) {
+        mostSigBits = _mostSigBits;
+        leastSigBits = _leastSigBits;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code id} is not a lower case UUID
+     */
+    public static ExpoPushId parse(String id) {
+        ExpoPushId parsed = tryParse(id);
+        if (parsed == null)
+            throw new IllegalArgumentException("Not a packable id: " + id);
+        return parsed;
+    }
+
+    /**
+     * @return the packed id, or null if {@code id} is not a lower case UUID
+     */
+    public static ExpoPushId tryParse(String id) {
+        long[] bits = new long[2];
+        return _parseUuid(id, bits, 0) ? new ExpoPushId(bits[0], bits[1]) : null;
+    }
+
+    public long getMostSigBits() {
+        return mostSigBits;
+    }
+
+    public long getLeastSigBits() {
+        return leastSigBits;
+    }
+
+    @Override
+    public String toString() {
+        return new String(_formatUuid(mostSigBits, leastSigBits));
+    }
+
+    @Override
+    public boolean equals(Object _o) {
+        if (_o == this)
+            return true;
+        if (!(_o instanceof ExpoPushId))
+            return false;
+        ExpoPushId o = (ExpoPushId) _o;
+        return mostSigBits == o.mostSigBits && leastSigBits == o.leastSigBits;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = mostSigBits ^ leastSigBits;
+        return (int) (bits >> 32) ^ (int) bits;
+    }
+
+    /**
+     * Parses a lower case UUID into {@code into[offset]} and {@code into[offset + 1]}.
+     *
+     * @return false, leaving {@code into} as it is, if {@code id} is not a lower case UUID
+     */
+    static boolean _parseUuid(String id, long[] into, int offset) {
+        if (id == null || id.length() != LENGTH)
+            return false;
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        int digits = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-')
+                    return false;
+                continue;
+            }
+            int value;
+            if (c >= '0' && c <= '9')
+                value = c - '0';
+            else if (c >= 'a' && c <= 'f')
+                value = c - 'a' + 10;
+            else
+                return false;
+            if (digits < 16)
+                mostSigBits = (mostSigBits << 4) | value;
+            else
+                leastSigBits = (leastSigBits << 4) | value;
+            digits++;
+        }
+        into[offset] = mostSigBits;
+        into[offset + 1] = leastSigBits;
+        return true;
+    }
+
+    static char[] _formatUuid(long mostSigBits, long leastSigBits) {
+        char[] chars = new char[LENGTH];
+        _formatUuid(mostSigBits, leastSigBits, chars);
+        return chars;
+    }
+
+    static void _formatUuid(long mostSigBits, long leastSigBits, char[] into) {
+        int position = 0;
+        for (int digit = 0; digit < 32; digit++) {
+            if (digit == 8 || digit == 12 || digit == 16 || digit == 20)
+                into[position++] = '-';
+            long bits = digit < 16 ? mostSigBits : leastSigBits;
+            int shift = (15 - (digit % 16)) * 4;
+            into[position++] = HEX_DIGITS[(int) ((bits >>> shift) & 0xf)];
+        }
+    }
+
+    /**
+     * Writes the id as a JSON string straight from its bits.
+     */
+    public static class Serializer extends JsonSerializer<ExpoPushId> {
+        @Override
+        public void serialize(ExpoPushId id, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
+                throws IOException {
+            jsonGenerator.writeString(_formatUuid(id.mostSigBits, id.leastSigBits), 0, LENGTH);
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<ExpoPushId> {
+        @Override
+        public ExpoPushId deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.VALUE_STRING)
+                return ExpoPushId.class.cast(context.handleUnexpectedToken(ExpoPushId.class, parser));
+            String text = parser.getText();
+            ExpoPushId id = tryParse(text);
+            if (id == null)
+                return ExpoPushId.class.cast(
+                        context.handleWeirdStringValue(ExpoPushId.class, text, "not a lower case UUID"));
+            return id;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A growable list of {@link ExpoPushId}s backed by a {@code long[]}, two longs per id. {@link #get(int)} creates
+ * an {@link ExpoPushId} on every call; use {@link #getMostSigBits(int)} and {@link #getLeastSigBits(int)} to read
+ * ids without allocating. Serialized as a JSON array of id strings.
+ */
+@JsonSerialize(using = ExpoPushIdList.Serializer.class)
+@JsonDeserialize(using = ExpoPushIdList.Deserializer.class)
+public final class ExpoPushIdList extends AbstractList<ExpoPushId> implements RandomAccess {
+    private long[] bits;
+    private int size = 0;
+
+    public ExpoPushIdList() {
+        this(16);
+    }
+
+    public ExpoPushIdList(int _initialCapacity) {
+        bits = new long[Math.max(1, _initialCapacity) * 2];
+    }
+
+    /**
+     * @throws IllegalArgumentException if one of {@code ids} is not a lower case UUID
+     */
+    public static ExpoPushIdList parse(Collection<String> ids) {
+        ExpoPushIdList list = new ExpoPushIdList(ids.size());
+        for (String id : ids) {
+            if (!list.tryAdd(id))
+                throw new IllegalArgumentException("Not a packable id: " + id);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean add(ExpoPushId id) {
+        add(id.getMostSigBits(), id.getLeastSigBits());
+        return true;
+    }
+
+    public void add(long mostSigBits, long leastSigBits) {
+        _ensureCapacity(size + 1);
+        bits[size * 2] = mostSigBits;
+        bits[size * 2 + 1] = leastSigBits;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Adds {@code id} without creating an {@link ExpoPushId}.
+     *
+     * @return false, leaving the list as it is, if {@code id} is not a lower case UUID
+     */
+    public boolean tryAdd(String id) {
+        _ensureCapacity(size + 1);
+        if (!ExpoPushId._parseUuid(id, bits, size * 2))
+            return false;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public ExpoPushId get(int index) {
+        _checkIndex(index);
+        return new ExpoPushId(bits[index * 2], bits[index * 2 + 1]);
+    }
+
+    public long getMostSigBits(int index) {
+        _checkIndex(index);
+        return bits[index * 2];
+    }
+
+    public long getLeastSigBits(int index) {
+        _checkIndex(index);
+        return bits[index * 2 + 1];
+    }
+
+    /**
+     * @return the id at {@code index} as a {@code String}
+     */
+    public String getString(int index) {
+        _checkIndex(index);
+        return new String(ExpoPushId._formatUuid(bits[index * 2], bits[index * 2 + 1]));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return a copy of the ids from {@code fromIndex}, inclusive, to {@code toIndex}, exclusive
+     */
+    public ExpoPushIdList copyOfRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException(fromIndex + ".." + toIndex + " of " + size);
+        ExpoPushIdList copy = new ExpoPushIdList(toIndex - fromIndex);
+        System.arraycopy(bits, fromIndex * 2, copy.bits, 0, (toIndex - fromIndex) * 2);
+        copy.size = toIndex - fromIndex;
+        return copy;
+    }
+
+    /**
+     * @return the ids as {@code String}s
+     */
+    public List<String> toStringList() {
+        List<String> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            ids.add(getString(i));
+        return ids;
+    }
+
+    private void _ensureCapacity(int ids) {
+        if (bits.length < ids * 2)
+            bits = Arrays.copyOf(bits, Math.max(bits.length * 2, ids * 2));
+    }
+
+    private void _checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index + " of " + size);
+    }
+
+    /**
+     * Writes the ids as an array of JSON strings, reusing one buffer for all of them.
+     */
+    public static class Serializer extends JsonSerializer<ExpoPushIdList> {
+        @Override
+        public void serialize(ExpoPushIdList ids, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
+                throws IOException {
+            char[] buffer = new char[ExpoPushId.LENGTH];
+            jsonGenerator.writeStartArray();
+            for (int i = 0; i < ids.size; i++) {
+                ExpoPushId._formatUuid(ids.bits[i * 2], ids.bits[i * 2 + 1], buffer);
+                jsonGenerator.writeString(buffer, 0, ExpoPushId.LENGTH);
+            }
+            jsonGenerator.writeEndArray();
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<ExpoPushIdList> {
+        @Override
+        public ExpoPushIdList deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY)
+                return ExpoPushIdList.class.cast(context.handleUnexpectedToken(ExpoPushIdList.class, parser));
+            ExpoPushIdList ids = new ExpoPushIdList();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_STRING)
+                    return ExpoPushIdList.class.cast(
+                            context.handleUnexpectedToken(ExpoPushIdList.class, parser));
+                String text = parser.getText();
+                if (!ids.tryAdd(text))
+                    return ExpoPushIdList.class.cast(context.handleWeirdStringValue(ExpoPushIdList.class, text,
+                            "not a lower case UUID"));
+            }
+            return ids;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -41,6 +43,9 @@ public class ExpoPushMessage implements JsonSerializable {
     @JsonProperty("channelId")
     public String channelId = null;
 
+    // The message this one was sliced from when chunking, so tickets can be mapped back to it.
+    private transient ExpoPushMessage origin = null;
+
     public ExpoPushMessage() {
         to = new ArrayList<>();
     }
@@ -57,6 +62,7 @@ public class ExpoPushMessage implements JsonSerializable {
         priority = _message.priority;
         badge = _message.badge;
         channelId = _message.channelId;
+        origin = _message.getOrigin();
     }
 
     public ExpoPushMessage(List<String> _to) {
@@ -183,6 +189,13 @@ public class ExpoPushMessage implements JsonSerializable {
         return priority;
     }
 
+    /**
+     * @return the message this one was copied from, or this message if it is not a copy
+     */
+    ExpoPushMessage getOrigin() {
+        return origin != null ? origin : this;
+    }
+
     @Override
     public void serialize(JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
         jsonGenerator.writeStartObject();
@@ -219,6 +232,61 @@ public class ExpoPushMessage implements JsonSerializable {
         jsonGenerator.writeEndObject();
     }
 
+    @Override
+    public boolean equals(Object _o) {
+        if (_o == null)
+            return false;
+
+        if (_o == this)
+            return true;
+
+        if (_o.getClass() != getClass())
+            return false;
+
+        ExpoPushMessage o = (ExpoPushMessage) _o;
+        return payloadEquals(o) && new EqualsBuilder().
+                append(to, o.to).
+                isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * payloadHashCode() + (to == null ? 0 : to.hashCode());
+    }
+
+    /**
+     * @return whether {@code o} carries the same notification as this message, ignoring the recipients
+     */
+    boolean payloadEquals(ExpoPushMessage o) {
+        return new EqualsBuilder().
+                append(data, o.data).
+                append(title, o.title).
+                append(subtitle, o.subtitle).
+                append(body, o.body).
+                append(sound, o.sound).
+                append(ttl, o.ttl).
+                append(expiration, o.expiration).
+                append(priority, o.priority).
+                append(badge, o.badge).
+                append(channelId, o.channelId).
+                isEquals();
+    }
+
+    int payloadHashCode() {
+        return new HashCodeBuilder().
+                append(data).
+                append(title).
+                append(subtitle).
+                append(body).
+                append(sound).
+                append(ttl).
+                append(expiration).
+                append(priority).
+                append(badge).
+                append(channelId).
+                toHashCode();
+    }
+
     @Override
     public void serializeWithType(JsonGenerator jsonGenerator, SerializerProvider serializerProvider, TypeSerializer typeSerializer) {
         throw new UnsupportedOperationException("serializeWithType() not implemented.");
@@ -24,6 +24,9 @@ public class ExpoPushReceiept implements JsonSerializable {
     @JsonProperty("details")
     private Details details = null;
 
+    @JsonIgnore
+    private long correlationKey = PushTicketStore.NO_KEY;
+
     @JsonIgnore
     private final Map<String, Object> additionalProperties = new HashMap<>();
 
@@ -57,6 +60,20 @@ public class ExpoPushReceiept implements JsonSerializable {
         this.details = details;
     }
 
+    /**
+     * @return the key stored for this receipt's ticket in the client's {@link PushTicketStore}, or
+     * {@link PushTicketStore#NO_KEY}
+     */
+    @JsonIgnore
+    public long getCorrelationKey() {
+        return correlationKey;
+    }
+
+    @JsonIgnore
+    public void setCorrelationKey(long correlationKey) {
+        this.correlationKey = correlationKey;
+    }
+
     @JsonAnyGetter
     public Map<String, Object> getAdditionalProperties() {
         return this.additionalProperties;
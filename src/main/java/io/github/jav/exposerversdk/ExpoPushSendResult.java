@@ -0,0 +1,32 @@
+package io.github.jav.exposerversdk;
+
+/**
+ * The ticket Expo returned for one recipient of a message sent through
+ * {@link PushClient#sendPushNotificationsBulkAsync(java.util.List, int)}.
+ */
+public class ExpoPushSendResult {
+    private final ExpoPushMessage message;
+    private final String recipient;
+    private final ExpoPushTicket ticket;
+
+    public ExpoPushSendResult(ExpoPushMessage _message, String _recipient, ExpoPushTicket _ticket) {
+        message = _message;
+        recipient = _recipient;
+        ticket = _ticket;
+    }
+
+    /**
+     * @return the message as it was passed to the client, not the per-chunk slice of it that was sent
+     */
+    public ExpoPushMessage getMessage() {
+        return message;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public ExpoPushTicket getTicket() {
+        return ticket;
+    }
+}
@@ -108,6 +108,7 @@ public class ExpoPushTicket implements JsonSerializable {
                 isEquals();
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     @JsonIgnoreProperties({"apns", "fcm"})
     public static class Details {
 
@@ -0,0 +1,235 @@
+package io.github.jav.exposerversdk;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the metrics in memory with {@link LongAdder}s, which stripe their counts across cells under
+ * contention. Recording allocates nothing once an endpoint, status code or ticket outcome has been seen.
+ * Latencies are kept in histograms with one bucket per power of two nanoseconds.
+ */
+public class LongAdderPushClientMetrics implements PushClientMetrics {
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> ticketOutcomes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> receiptOutcomes = new ConcurrentHashMap<>();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder chunkRecipients = new LongAdder();
+
+    @Override
+    public void serialized(String endpoint, long durationNanos, long bytes) {
+        EndpointMetrics metrics = _endpoint(endpoint);
+        metrics.serializations.increment();
+        metrics.serializationNanos.add(durationNanos);
+        metrics.serializedBytes.add(bytes);
+    }
+
+    @Override
+    public void chunkSent(int recipientCount) {
+        chunks.increment();
+        chunkRecipients.add(recipientCount);
+    }
+
+    @Override
+    public void requestStarted(String endpoint) {
+        _endpoint(endpoint).inFlight.increment();
+    }
+
+    @Override
+    public void requestCompleted(String endpoint, long durationNanos, Throwable error) {
+        EndpointMetrics metrics = _endpoint(endpoint);
+        metrics.inFlight.decrement();
+        metrics.latency.record(durationNanos);
+        if (error != null)
+            metrics.errors.increment();
+    }
+
+    @Override
+    public void responseReceived(String endpoint, int statusCode, long durationNanos) {
+        EndpointMetrics metrics = _endpoint(endpoint);
+        metrics.attemptLatency.record(durationNanos);
+        if (statusCode >= 0 && statusCode < metrics.statusCodes.length)
+            metrics.statusCodes[statusCode].increment();
+    }
+
+    @Override
+    public void retryScheduled(String endpoint, int attempt, long delayNanos) {
+        _endpoint(endpoint).retries.increment();
+    }
+
+    @Override
+    public void ticketReceived(ExpoPushTicket ticket) {
+        _outcome(ticketOutcomes, ticket.getStatus(), ticket.getDetails() == null ? null : ticket.getDetails().getError());
+    }
+
+    @Override
+    public void receiptReceived(ExpoPushReceiept receipt) {
+        _outcome(receiptOutcomes, receipt.getStatus(), receipt.getDetails() == null ? null : receipt.getDetails().getError());
+    }
+
+    private static void _outcome(ConcurrentHashMap<String, LongAdder> outcomes, String status, String error) {
+        // Count errors by their detail, e.g. DeviceNotRegistered, and everything else by status.
+        String key = error != null ? error : status != null ? status : "unknown";
+        LongAdder count = outcomes.get(key);
+        if (count == null)
+            count = outcomes.computeIfAbsent(key, k -> new LongAdder());
+        count.increment();
+    }
+
+    private EndpointMetrics _endpoint(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null)
+            metrics = endpoints.computeIfAbsent(endpoint, k -> new EndpointMetrics());
+        return metrics;
+    }
+
+    public long getRequestCount(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? 0 : metrics.latency.count();
+    }
+
+    public long getErrorCount(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? 0 : metrics.errors.sum();
+    }
+
+    public long getInFlight(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? 0 : metrics.inFlight.sum();
+    }
+
+    public long getRetryCount(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? 0 : metrics.retries.sum();
+    }
+
+    public long getStatusCodeCount(String endpoint, int statusCode) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null || statusCode < 0 || statusCode >= metrics.statusCodes.length)
+            return 0;
+        return metrics.statusCodes[statusCode].sum();
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return an upper bound of the given quantile of request latencies in nanoseconds, retries included,
+     * within a factor of two; 0 if there were no requests
+     */
+    public long getLatencyQuantileNanos(String endpoint, double quantile) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? 0 : metrics.latency.quantile(quantile);
+    }
+
+    /**
+     * Like {@link #getLatencyQuantileNanos(String, double)} for single attempts as seen by the resolver.
+     */
+    public long getAttemptLatencyQuantileNanos(String endpoint, double quantile) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? 0 : metrics.attemptLatency.quantile(quantile);
+    }
+
+    public long getSerializedBytes(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? 0 : metrics.serializedBytes.sum();
+    }
+
+    /**
+     * @return the mean time spent serializing a request body, in nanoseconds
+     */
+    public double getMeanSerializationNanos(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        long count = metrics == null ? 0 : metrics.serializations.sum();
+        return count == 0 ? 0 : (double) metrics.serializationNanos.sum() / count;
+    }
+
+    public long getChunkCount() {
+        return chunks.sum();
+    }
+
+    /**
+     * @return the mean number of recipients per chunk relative to {@link PushClient#PUSH_NOTIFICATION_CHUNK_LIMIT}
+     */
+    public double getChunkFillRatio() {
+        long count = chunks.sum();
+        return count == 0 ? 0 : (double) chunkRecipients.sum() / (count * PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT);
+    }
+
+    /**
+     * @return the number of tickets by outcome: {@code ok}, or the error detail such as {@code DeviceNotRegistered}
+     */
+    public Map<String, Long> getTicketCounts() {
+        return _snapshot(ticketOutcomes);
+    }
+
+    /**
+     * @return the number of receipts by outcome, like {@link #getTicketCounts()}
+     */
+    public Map<String, Long> getReceiptCounts() {
+        return _snapshot(receiptOutcomes);
+    }
+
+    private static Map<String, Long> _snapshot(ConcurrentHashMap<String, LongAdder> counts) {
+        Map<String, Long> snapshot = new HashMap<>();
+        counts.forEach((key, count) -> snapshot.put(key, count.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    private static class EndpointMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram attemptLatency = new LatencyHistogram();
+        final LongAdder inFlight = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder serializations = new LongAdder();
+        final LongAdder serializationNanos = new LongAdder();
+        final LongAdder serializedBytes = new LongAdder();
+        final LongAdder[] statusCodes = new LongAdder[600];
+
+        EndpointMetrics() {
+            for (int i = 0; i < statusCodes.length; i++)
+                statusCodes[i] = new LongAdder();
+        }
+    }
+
+    private static class LatencyHistogram {
+        // Bucket i counts durations of at least 2^(i-1) and below 2^i nanoseconds.
+        private final LongAdder[] buckets = new LongAdder[64];
+
+        LatencyHistogram() {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = new LongAdder();
+        }
+
+        void record(long nanos) {
+            buckets[nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos)].increment();
+        }
+
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets)
+                count += bucket.sum();
+            return count;
+        }
+
+        long quantile(double quantile) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0)
+                return 0;
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0)
+                    return i >= 63 ? Long.MAX_VALUE : 1L << i;
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.jav.exposerversdk;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Sends a sequence of chunks with at most {@code maxChunksInFlight} requests outstanding, and maps every
+ * returned ticket back to the message and recipient it belongs to.
+ */
+class PushBulkSender {
+    private final PushClient client;
+    private final Iterator<List<ExpoPushMessage>> chunks;
+    private final int maxChunksInFlight;
+    private final Consumer<ExpoPushSendResult> resultConsumer;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Serializes dispatching without recursion when requests complete synchronously.
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private boolean exhausted = false;
+
+    PushBulkSender(PushClient _client, Iterator<List<ExpoPushMessage>> _chunks, int _maxChunksInFlight,
+                   Consumer<ExpoPushSendResult> _resultConsumer) {
+        if (_maxChunksInFlight <= 0)
+            throw new IllegalArgumentException();
+        client = _client;
+        chunks = _chunks;
+        maxChunksInFlight = _maxChunksInFlight;
+        resultConsumer = _resultConsumer;
+    }
+
+    CompletableFuture<Void> start() {
+        _dispatch();
+        return completion;
+    }
+
+    private void _dispatch() {
+        if (dispatchRequests.getAndIncrement() != 0)
+            return;
+        do {
+            while (inFlight.get() < maxChunksInFlight) {
+                List<ExpoPushMessage> chunk = _nextChunk();
+                if (chunk == null)
+                    break;
+                inFlight.incrementAndGet();
+                _send(chunk);
+            }
+            if (inFlight.get() == 0 && (exhausted || failure.get() != null)) {
+                Throwable t = failure.get();
+                if (t == null)
+                    completion.complete(null);
+                else
+                    completion.completeExceptionally(t);
+            }
+        } while (dispatchRequests.decrementAndGet() != 0);
+    }
+
+    private List<ExpoPushMessage> _nextChunk() {
+        if (exhausted || failure.get() != null)
+            return null;
+        try {
+            if (chunks.hasNext())
+                return chunks.next();
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            return null;
+        }
+        exhausted = true;
+        return null;
+    }
+
+    private void _send(List<ExpoPushMessage> chunk) {
+        CompletableFuture<List<ExpoPushTicket>> tickets;
+        try {
+            tickets = client.sendPushNotificationsAsync(chunk);
+        } catch (RuntimeException e) {
+            tickets = null;
+            failure.compareAndSet(null, e);
+        }
+        if (tickets == null) {
+            failure.compareAndSet(null, new IllegalStateException("Could not send chunk"));
+            _onChunkDone();
+            return;
+        }
+        tickets.whenComplete((chunkTickets, e) -> {
+            try {
+                if (e != null)
+                    failure.compareAndSet(null, e);
+                else
+                    _deliver(chunk, chunkTickets);
+            } catch (RuntimeException deliveryError) {
+                failure.compareAndSet(null, deliveryError);
+            } finally {
+                _onChunkDone();
+            }
+        });
+    }
+
+    private void _onChunkDone() {
+        inFlight.decrementAndGet();
+        _dispatch();
+    }
+
+    private void _deliver(List<ExpoPushMessage> chunk, List<ExpoPushTicket> tickets) {
+        if (tickets == null)
+            throw new IllegalStateException("Could not parse the tickets of a chunk");
+        long recipientCount = PushClient._getActualMessagesCount(chunk);
+        if (tickets.size() != recipientCount)
+            throw new IllegalStateException("Expected " + recipientCount + " tickets, got " + tickets.size());
+
+        int ticketIndex = 0;
+        for (ExpoPushMessage message : chunk) {
+            ExpoPushMessage origin = message.getOrigin();
+            for (String recipient : message.to) {
+                resultConsumer.accept(new ExpoPushSendResult(origin, recipient, tickets.get(ticketIndex++)));
+            }
+        }
+    }
+}
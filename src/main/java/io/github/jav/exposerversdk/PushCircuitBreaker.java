@@ -0,0 +1,314 @@
+package io.github.jav.exposerversdk;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending to the push server while it is failing. Outcomes of requests are counted in a sliding window
+ * of time buckets; once enough requests were made and too many of them failed or were slow, the breaker opens
+ * and requests fail fast. After {@link #getOpenDuration() a while} it lets a few trial requests through and
+ * closes again if they all succeed.
+ * <p>
+ * Recording an outcome only touches atomic counters, so the breaker adds no lock to the request path.
+ * Use {@link #getState()} or {@link #isCallPermitted()} to shed load before it reaches the client.
+ */
+public class PushCircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(10);
+    public static final int DEFAULT_WINDOW_BUCKETS = 10;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+    public static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    public static final int DEFAULT_HALF_OPEN_TRIALS = 3;
+    public static final long NO_PERMIT = -1;
+
+    private final Bucket[] buckets;
+    private final long bucketNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile int minimumCalls = DEFAULT_MINIMUM_CALLS;
+    private volatile double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private volatile double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    private volatile long slowCallNanos = DEFAULT_SLOW_CALL_DURATION.toNanos();
+    private volatile long openNanos = DEFAULT_OPEN_DURATION.toNanos();
+    private volatile int halfOpenTrials = DEFAULT_HALF_OPEN_TRIALS;
+
+    // State, open time and trial counters change together, each change starts a new generation.
+    private final AtomicReference<Phase> phase = new AtomicReference<>(new Phase(State.CLOSED, 0, 0));
+
+    public PushCircuitBreaker() {
+        this(DEFAULT_WINDOW, DEFAULT_WINDOW_BUCKETS);
+    }
+
+    /**
+     * @param window        how far back outcomes are counted
+     * @param windowBuckets how many buckets the window is divided into, outcomes expire one bucket at a time
+     */
+    public PushCircuitBreaker(Duration window, int windowBuckets) {
+        this(window, windowBuckets, System::nanoTime);
+    }
+
+    PushCircuitBreaker(Duration window, int windowBuckets, LongSupplier _nanoClock) {
+        if (windowBuckets <= 0 || window.toNanos() < windowBuckets)
+            throw new IllegalArgumentException();
+        buckets = new Bucket[windowBuckets];
+        for (int i = 0; i < windowBuckets; i++)
+            buckets[i] = new Bucket();
+        bucketNanos = window.toNanos() / windowBuckets;
+        nanoClock = _nanoClock;
+    }
+
+    /**
+     * Like {@link #acquirePermit()}, for callers that report outcomes with the untagged methods.
+     */
+    public boolean tryAcquire() {
+        return acquirePermit() != NO_PERMIT;
+    }
+
+    /**
+     * @return a permit to send a request now, or {@link #NO_PERMIT}. In the half-open state this takes one of
+     * the trial slots, so every permit must be followed by {@link #onSuccess(long, long)},
+     * {@link #onError(long, long)} or {@link #release(long)}. Outcomes of permits taken before the breaker
+     * last changed state are ignored.
+     */
+    public long acquirePermit() {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return current.generation;
+                case OPEN:
+                    if (nanoClock.getAsLong() - current.openedAt < openNanos)
+                        return NO_PERMIT;
+                    phase.compareAndSet(current, new Phase(State.HALF_OPEN, current.openedAt, current.generation + 1));
+                    continue;
+                default:
+                    return current.trialsStarted.incrementAndGet() <= halfOpenTrials ? current.generation : NO_PERMIT;
+            }
+        }
+    }
+
+    /**
+     * @return whether {@link #tryAcquire()} would let a request through, without taking a trial slot
+     */
+    public boolean isCallPermitted() {
+        Phase current = phase.get();
+        switch (current.state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return nanoClock.getAsLong() - current.openedAt >= openNanos;
+            default:
+                return current.trialsStarted.get() < halfOpenTrials;
+        }
+    }
+
+    /**
+     * Records a success for a permit of the current state.
+     */
+    public void onSuccess(long durationNanos) {
+        onSuccess(phase.get().generation, durationNanos);
+    }
+
+    public void onSuccess(long permit, long durationNanos) {
+        Phase current = phase.get();
+        if (permit != current.generation)
+            return;
+        if (current.state == State.HALF_OPEN) {
+            if (current.trialsSucceeded.incrementAndGet() >= halfOpenTrials
+                    && phase.compareAndSet(current, new Phase(State.CLOSED, 0, current.generation + 1)))
+                _resetWindow();
+            return;
+        }
+        _record(current, false, durationNanos >= slowCallNanos);
+    }
+
+    /**
+     * Records a failure for a permit of the current state.
+     */
+    public void onError(long durationNanos) {
+        onError(phase.get().generation, durationNanos);
+    }
+
+    public void onError(long permit, long durationNanos) {
+        Phase current = phase.get();
+        if (permit != current.generation)
+            return;
+        if (current.state == State.HALF_OPEN) {
+            _open(current);
+            return;
+        }
+        _record(current, true, durationNanos >= slowCallNanos);
+    }
+
+    /**
+     * Gives back a permit of the current state whose call ended without an outcome, e.g. because it was cancelled.
+     */
+    public void release() {
+        release(phase.get().generation);
+    }
+
+    public void release(long permit) {
+        Phase current = phase.get();
+        if (permit == current.generation && current.state == State.HALF_OPEN)
+            current.trialsStarted.decrementAndGet();
+    }
+
+    private void _record(Phase current, boolean failed, boolean slow) {
+        long now = nanoClock.getAsLong();
+        _bucket(now).add(failed, slow);
+
+        long calls = 0, failures = 0, slowCalls = 0;
+        long currentIndex = Math.floorDiv(now, bucketNanos);
+        for (Bucket bucket : buckets) {
+            long bucketIndex = bucket.index.get();
+            if (bucketIndex == Long.MIN_VALUE || currentIndex - bucketIndex >= buckets.length)
+                continue;
+            calls += bucket.calls.get();
+            failures += bucket.failures.get();
+            slowCalls += bucket.slowCalls.get();
+        }
+        if (calls >= minimumCalls
+                && (failures >= calls * failureRateThreshold || slowCalls >= calls * slowCallRateThreshold))
+            _open(current);
+    }
+
+    private Bucket _bucket(long now) {
+        long index = Math.floorDiv(now, bucketNanos);
+        Bucket bucket = buckets[(int) Math.floorMod(index, (long) buckets.length)];
+        long bucketIndex = bucket.index.get();
+        // The first thread into a stale bucket clears it, outcomes racing with the reset may be lost.
+        if (bucketIndex != index && bucket.index.compareAndSet(bucketIndex, index))
+            bucket.reset();
+        return bucket;
+    }
+
+    private void _open(Phase from) {
+        // The open time is part of the new phase, nobody sees OPEN with the time of an earlier opening.
+        phase.compareAndSet(from, new Phase(State.OPEN, nanoClock.getAsLong(), from.generation + 1));
+    }
+
+    private void _resetWindow() {
+        for (Bucket bucket : buckets) {
+            bucket.index.set(Long.MIN_VALUE);
+            bucket.reset();
+        }
+    }
+
+    public State getState() {
+        // Report an open breaker whose open duration is over as half-open, it lets the next request through.
+        Phase current = phase.get();
+        if (current.state == State.OPEN && nanoClock.getAsLong() - current.openedAt >= openNanos)
+            return State.HALF_OPEN;
+        return current.state;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @param _minimumCalls how many calls the window must hold before the breaker may open
+     */
+    public void setMinimumCalls(int _minimumCalls) {
+        if (_minimumCalls <= 0)
+            throw new IllegalArgumentException();
+        minimumCalls = _minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(double _failureRateThreshold) {
+        if (!(_failureRateThreshold > 0 && _failureRateThreshold <= 1))
+            throw new IllegalArgumentException();
+        failureRateThreshold = _failureRateThreshold;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(double _slowCallRateThreshold) {
+        if (!(_slowCallRateThreshold > 0 && _slowCallRateThreshold <= 1))
+            throw new IllegalArgumentException();
+        slowCallRateThreshold = _slowCallRateThreshold;
+    }
+
+    public Duration getSlowCallDuration() {
+        return Duration.ofNanos(slowCallNanos);
+    }
+
+    /**
+     * @param _slowCallDuration calls taking at least this long count as slow, whether they succeed or not
+     */
+    public void setSlowCallDuration(Duration _slowCallDuration) {
+        slowCallNanos = _slowCallDuration.toNanos();
+    }
+
+    public Duration getOpenDuration() {
+        return Duration.ofNanos(openNanos);
+    }
+
+    /**
+     * @param _openDuration how long the breaker fails fast before letting trial requests through
+     */
+    public void setOpenDuration(Duration _openDuration) {
+        openNanos = _openDuration.toNanos();
+    }
+
+    public int getHalfOpenTrials() {
+        return halfOpenTrials;
+    }
+
+    public void setHalfOpenTrials(int _halfOpenTrials) {
+        if (_halfOpenTrials <= 0)
+            throw new IllegalArgumentException();
+        halfOpenTrials = _halfOpenTrials;
+    }
+
+    private static class Phase {
+        final State state;
+        final long openedAt;
+        final long generation;
+        // Trials let through and trials that succeeded, only used while half-open.
+        final AtomicInteger trialsStarted = new AtomicInteger();
+        final AtomicInteger trialsSucceeded = new AtomicInteger();
+
+        Phase(State _state, long _openedAt, long _generation) {
+            state = _state;
+            openedAt = _openedAt;
+            generation = _generation;
+        }
+    }
+
+    private static class Bucket {
+        final AtomicLong index = new AtomicLong(Long.MIN_VALUE);
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong slowCalls = new AtomicLong();
+
+        void add(boolean failed, boolean slow) {
+            calls.incrementAndGet();
+            if (failed)
+                failures.incrementAndGet();
+            if (slow)
+                slowCalls.incrementAndGet();
+        }
+
+        void reset() {
+            calls.set(0);
+            failures.set(0);
+            slowCalls.set(0);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.jav.exposerversdk;
+
+import java.io.IOException;
+
+/**
+ * A request was not sent because the {@link PushCircuitBreaker} guarding the push server is open.
+ */
+public class PushCircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final PushCircuitBreaker.State state;
+
+    public PushCircuitOpenException(PushCircuitBreaker.State _state) {
+        super("Circuit breaker is " + _state + ", request was not sent");
+        state = _state;
+    }
+
+    public PushCircuitBreaker.State getState() {
+        return state;
+    }
+}
@@ -1,29 +1,78 @@
 package io.github.jav.exposerversdk;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class PushClient {
     public static final long PUSH_NOTIFICATION_CHUNK_LIMIT = 100;
     public static final long PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT = 300;
+    public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = 8;
+    private static final String PUSH_TOKEN_PREFIX_A = "ExponentPushToken[";
+    private static final String PUSH_TOKEN_PREFIX_B = "ExpoPushToken[";
+    private static final String PUSH_TOKEN_POSTFIX = "]";
+    private static final int PARALLEL_TOKEN_VALIDATION_THRESHOLD = 10_000;
 
     private URI baseApiUrl = URI.create("https://exp.host/--/api/v2");
+    private long maxChunkBytes = PushNotificationChunkIterator.NO_BYTE_LIMIT;
+    private PushRateLimiter rateLimiter = null;
+    private PushClientMetrics metrics = PushClientMetrics.NOOP;
+    private PushOutbox outbox = null;
+    private PushTicketStore ticketStore = null;
+    private PushTokenSuppressionCache suppressionCache = null;
     private final PushServerResolver pushServerResolver;
+    private final StreamingPushServerResolver streamingPushServerResolver;
+    // Readers and writers are immutable and thread-safe, build them once so Jackson's
+    // (de)serializer caches are reused across every chunk sent through this client.
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter messagesWriter;
+    private final ObjectWriter receiptIdsWriter;
+    private final ObjectReader ticketReader;
+    private final ObjectReader receiptReader;
 
-    public PushClient(PushServerResolver pushServerResolver){
+    public PushClient(PushServerResolver pushServerResolver, ObjectMapper objectMapper) {
         this.pushServerResolver = pushServerResolver;
+        this.streamingPushServerResolver = PushServerResolverAdapter.adapt(pushServerResolver);
+        this.objectMapper = objectMapper;
+        messagesWriter = objectMapper.writerFor(new TypeReference<List<ExpoPushMessage>>() {
+        });
+        receiptIdsWriter = objectMapper.writerFor(JsonReceiptHelper.class);
+        ticketReader = objectMapper.readerFor(ExpoPushTicket.class);
+        receiptReader = objectMapper.readerFor(ExpoPushReceiept.class);
+    }
+
+    public PushClient(PushServerResolver pushServerResolver){
+        this(pushServerResolver, new ObjectMapper());
     }
 
     public PushClient() {
@@ -32,55 +81,88 @@ public class PushClient {
 
     public CompletableFuture<List<ExpoPushTicket>> sendPushNotificationsAsync(List<ExpoPushMessage> messages) {
         try {
-            return _postNotificationAsync(new URL(baseApiUrl + "/push/send"), messages)
-                    .thenApply((String jsonString) -> {
+            CompletableFuture<InputStream> response = _postNotificationStreamingAsync(new URL(baseApiUrl + "/push/send"), messages);
+            if (response == null)
+                return null;
+            // Cancelling the returned future aborts the request.
+            return CompletableFutures.propagateCancellation(response
+                    .thenApply((InputStream jsonStream) -> {
                         try {
-                            ObjectMapper mapper = new ObjectMapper();
-                            JsonNode dataNode = mapper.readTree(jsonString).get("data");
-                            List<ExpoPushTicket> retList = new ArrayList<>();
-                            for (JsonNode node : dataNode) {
-                                retList.add(mapper.convertValue(node, ExpoPushTicket.class));
-                            }
-                            return retList;
+                            return _recordTickets(messages, _parseTickets(jsonStream));
                         } catch (JsonProcessingException e) {
                             e.printStackTrace();
                         } catch (IOException e) {
                             e.printStackTrace();
                         }
                         return null;
-                    });
+                    }), response);
         } catch (MalformedURLException e) {
             e.printStackTrace();
         }
         return null;
     }
 
+    /**
+     * Chunks {@code messages} and sends the chunks with at most {@code maxChunksInFlight} requests outstanding.
+     *
+     * @param resultConsumer receives one result per recipient as tickets arrive, possibly from several threads at once
+     * @return a future completed once every chunk has been answered, or exceptionally with the first failure.
+     * No further chunks are sent after a failure.
+     */
+    public CompletableFuture<Void> sendPushNotificationsBulkAsync(List<ExpoPushMessage> messages, int maxChunksInFlight,
+                                                                  Consumer<ExpoPushSendResult> resultConsumer) {
+        return sendPushNotificationsBulkAsync(messages.iterator(), maxChunksInFlight, resultConsumer);
+    }
+
+    /**
+     * Like {@link #sendPushNotificationsBulkAsync(List, int, Consumer)}, pulling messages from {@code messages}
+     * only as chunks are sent. The iterator is only ever advanced by one thread at a time.
+     */
+    public CompletableFuture<Void> sendPushNotificationsBulkAsync(Iterator<ExpoPushMessage> messages, int maxChunksInFlight,
+                                                                  Consumer<ExpoPushSendResult> resultConsumer) {
+        return new PushBulkSender(this, chunkPushNotifications(messages), maxChunksInFlight, resultConsumer)
+                .start();
+    }
+
+    /**
+     * Like {@link #sendPushNotificationsBulkAsync(List, int, Consumer)}, collecting the results in the order
+     * the chunks were answered.
+     */
+    public CompletableFuture<List<ExpoPushSendResult>> sendPushNotificationsBulkAsync(List<ExpoPushMessage> messages,
+                                                                                      int maxChunksInFlight) {
+        List<ExpoPushSendResult> results = Collections.synchronizedList(new ArrayList<>());
+        return sendPushNotificationsBulkAsync(messages, maxChunksInFlight, results::add)
+                .thenApply(v -> results);
+    }
+
     public CompletableFuture<List<ExpoPushReceiept>> getPushNotificationReceiptsAsync(List<String> _ids) {
+        return _getPushNotificationReceiptsAsync(_ids);
+    }
+
+    /**
+     * Same as {@link #getPushNotificationReceiptsAsync(List)}, for ids kept packed. The ids are written to the
+     * request without creating a {@code String} for each of them.
+     */
+    public CompletableFuture<List<ExpoPushReceiept>> getPushNotificationReceiptsAsync(ExpoPushIdList _ids) {
+        return _getPushNotificationReceiptsAsync(_ids);
+    }
+
+    private <T> CompletableFuture<List<ExpoPushReceiept>> _getPushNotificationReceiptsAsync(List<T> _ids) {
         try {
-            return _postReceiptsAsync(new URL(baseApiUrl + "/push/getReceipts"), _ids)
-                    .thenApply((String jsonString) -> {
+            CompletableFuture<InputStream> response = _postReceiptsAsync(new URL(baseApiUrl + "/push/getReceipts"), _ids);
+            if (response == null)
+                return null;
+            return CompletableFutures.propagateCancellation(response
+                    .thenApply((InputStream jsonStream) -> {
                         try {
-                            ObjectMapper mapper = new ObjectMapper();
-                            JsonNode dataNode = mapper.readTree(jsonString).get("data");
-                            List<ExpoPushReceiept> retList = new ArrayList<>();
-                            Iterator<Map.Entry<String, JsonNode>> it = dataNode.fields();
-                            while (it.hasNext()) {
-                                Map.Entry<String, JsonNode> field = it.next();
-                                String key = field.getKey();
-                                JsonNode expoPushRecieptJsonNode = field.getValue();
-                                ExpoPushReceiept epr = mapper.treeToValue(expoPushRecieptJsonNode, ExpoPushReceiept.class);
-
-                                epr.id = key;
-                                retList.add(epr);
-                            }
-                            return retList;
+                            return _recordReceipts(_parseReceipts(jsonStream));
                         } catch (JsonProcessingException e) {
                             e.printStackTrace();
                         } catch (IOException e) {
                             e.printStackTrace();
                         }
                         return null;
-                    });
+                    }), response);
         } catch (URISyntaxException e) {
             e.printStackTrace();
         } catch (MalformedURLException e) {
@@ -89,12 +171,61 @@ public class PushClient {
         return null;
     }
 
+    /**
+     * Reads the tickets in the {@code data} array of a /push/send response, one ticket at a time
+     * without building a tree of the whole response.
+     */
+    List<ExpoPushTicket> _parseTickets(InputStream jsonStream) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(jsonStream)) {
+            _moveToDataField(parser, JsonToken.START_ARRAY);
+            List<ExpoPushTicket> retList = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                retList.add(ticketReader.readValue(parser));
+            }
+            return retList;
+        }
+    }
+
+    /**
+     * Reads the receipts in the {@code data} object of a /push/getReceipts response, keyed by receipt id.
+     */
+    List<ExpoPushReceiept> _parseReceipts(InputStream jsonStream) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(jsonStream)) {
+            _moveToDataField(parser, JsonToken.START_OBJECT);
+            List<ExpoPushReceiept> retList = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                parser.nextToken();
+                ExpoPushReceiept epr = receiptReader.readValue(parser);
+
+                epr.id = key;
+                retList.add(epr);
+            }
+            return retList;
+        }
+    }
+
+    private static void _moveToDataField(JsonParser parser, JsonToken expectedToken) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            throw new JsonParseException(parser, "Expected a JSON object");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("data".equals(fieldName)) {
+                if (token != expectedToken)
+                    throw new JsonParseException(parser, "Expected " + expectedToken + " for \"data\", got " + token);
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new JsonParseException(parser, "Response has no \"data\" field");
+    }
+
     protected <T> CompletableFuture<String> _postNotificationAsync(URL url, List<T> messages) {
-        ObjectMapper objectMapper = new ObjectMapper();
         String json = null;
 
         try {
-            json = objectMapper.
+            json = messagesWriter.
                     writeValueAsString(messages);
         } catch (JsonProcessingException e) {
             e.printStackTrace();
@@ -102,6 +233,113 @@ public class PushClient {
         return pushServerResolver.postAsync(url, json);
     }
 
+    private CompletableFuture<InputStream> _postNotificationStreamingAsync(URL url, List<ExpoPushMessage> messages) {
+        // Serialize straight to UTF-8 bytes and hand the resolver a view of them, no String and no copy.
+        ByteArrayBuffer body = new ByteArrayBuffer();
+        long start = System.nanoTime();
+
+        try {
+            messagesWriter.
+                    writeValue(body, messages);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        long notificationCount = _getActualMessagesCount(messages);
+        PushClientMetrics metrics = this.metrics;
+        metrics.serialized(PushClientMetrics.SEND, System.nanoTime() - start, body.size());
+        metrics.chunkSent((int) notificationCount);
+
+        PushOutbox outbox = this.outbox;
+        if (outbox == null)
+            return _postRateLimited(url, body.toByteBuffer(), notificationCount, PushClientMetrics.SEND);
+        // Only send once the chunk is on disk, and mark it handled once the server has answered.
+        CompletableFuture<Long> logged = outbox.append(body.toByteBuffer());
+        // Cancelling the send must not cancel the append itself, the record is written already.
+        CompletableFuture<InputStream> response = CompletableFutures.composeCancellable(
+                logged.thenApply(sequence -> sequence),
+                () -> _postRateLimited(url, body.toByteBuffer(), notificationCount, PushClientMetrics.SEND));
+        // Settle the chunk before the caller sees the response, so a completed send is never replayed. The caller
+        // gets a future of its own, so cancelling it still settles the chunk: a chunk cancelled before it was on
+        // disk is released once it is.
+        CompletableFuture<InputStream> settled = response.whenComplete(
+                (jsonStream, e) -> logged.thenAccept(sequence -> _settle(outbox, sequence, e)));
+        CompletableFuture<InputStream> retCompletableFuture = new CompletableFuture<>();
+        settled.whenComplete((jsonStream, e) -> {
+            if (e != null)
+                retCompletableFuture.completeExceptionally(e);
+            else
+                retCompletableFuture.complete(jsonStream);
+        });
+        return CompletableFutures.propagateCancellation(retCompletableFuture, response);
+    }
+
+    /**
+     * Acknowledges a chunk the server has answered, unless the answer asks to send it again later, and releases
+     * it for the next replay otherwise.
+     */
+    private static void _settle(PushOutbox outbox, long sequence, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause != null && !(cause instanceof PushServerException && !((PushServerException) cause).isRetryable())) {
+            outbox.release(sequence);
+            return;
+        }
+        try {
+            outbox.ack(sequence);
+        } catch (IOException ioException) {
+            ioException.printStackTrace();
+        }
+    }
+
+    /**
+     * Sends the chunks {@link PushOutbox#claimPendingChunks() pending} in the outbox that no other send is
+     * working on, one after the other. Each is acknowledged once the server has answered it; a chunk the server
+     * did not answer, or answered with a throttling or server error, stays in the outbox for the next replay.
+     *
+     * @return a future completed with the tickets of every chunk in order once all were sent, or exceptionally
+     * with the first failure once every chunk was tried
+     */
+    public CompletableFuture<List<ExpoPushTicket>> replayOutboxAsync() {
+        PushOutbox outbox = this.outbox;
+        if (outbox == null)
+            throw new IllegalStateException("No outbox set");
+        URL url;
+        try {
+            url = new URL(baseApiUrl + "/push/send");
+        } catch (MalformedURLException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        List<ExpoPushTicket> tickets = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        CompletableFuture<Void> replayed = CompletableFuture.completedFuture(null);
+        for (PushOutbox.PendingChunk chunk : outbox.claimPendingChunks()) {
+            // The number of recipients is not known without parsing the chunk, assume a full one.
+            replayed = replayed.thenCompose(v -> _postRateLimited(url, chunk.getBody(), PUSH_NOTIFICATION_CHUNK_LIMIT,
+                    PushClientMetrics.SEND))
+                    .handle((InputStream jsonStream, Throwable e) -> {
+                        _settle(outbox, chunk.getSequence(), e);
+                        if (e != null) {
+                            failures.add(e);
+                            return null;
+                        }
+                        try {
+                            tickets.addAll(_recordTickets(null, _parseTickets(jsonStream)));
+                        } catch (IOException ioException) {
+                            failures.add(ioException);
+                        }
+                        return null;
+                    });
+        }
+        return replayed.thenApply(v -> {
+            if (!failures.isEmpty()) {
+                Throwable failure = failures.get(0);
+                throw failure instanceof CompletionException ? (CompletionException) failure
+                        : new CompletionException(failure);
+            }
+            return tickets;
+        });
+    }
 
     private static class JsonReceiptHelper<T> {
         public List<T> ids;
@@ -110,34 +348,127 @@ public class PushClient {
         }
     }
 
-    private <T> CompletableFuture<String> _postReceiptsAsync(URL url, List<T> receipts) throws URISyntaxException {
+    private <T> CompletableFuture<InputStream> _postReceiptsAsync(URL url, List<T> receipts) throws URISyntaxException {
         JsonReceiptHelper<T> jsonReceiptHelper = new JsonReceiptHelper<T>(receipts);
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        String json = null;
+        ByteArrayBuffer body = new ByteArrayBuffer();
+        long start = System.nanoTime();
 
         try {
-            json = objectMapper.
-                    writeValueAsString(jsonReceiptHelper);
-        } catch (JsonProcessingException e) {
+            receiptIdsWriter.
+                    writeValue(body, jsonReceiptHelper);
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        return pushServerResolver.postAsync(url, json);
+        metrics.serialized(PushClientMetrics.GET_RECEIPTS, System.nanoTime() - start, body.size());
+        return _postRateLimited(url, body.toByteBuffer(), 0, PushClientMetrics.GET_RECEIPTS);
+    }
+
+    private CompletableFuture<InputStream> _postRateLimited(URL url, ByteBuffer body, long notificationCount,
+                                                            String endpoint) {
+        PushRateLimiter limiter = rateLimiter;
+        if (limiter == null)
+            return _instrumented(endpoint, streamingPushServerResolver.postAsyncStreaming(url, body));
+        CompletableFuture<Void> permit = limiter.acquireAsync(notificationCount);
+        if (permit.isDone() && !permit.isCompletedExceptionally())
+            return _instrumented(endpoint, streamingPushServerResolver.postAsyncStreaming(url, body));
+        // A request cancelled while waiting for its permit is never sent.
+        return CompletableFutures.composeCancellable(permit,
+                () -> _instrumented(endpoint, streamingPushServerResolver.postAsyncStreaming(url, body)));
+    }
+
+    private <T> CompletableFuture<T> _instrumented(String endpoint, CompletableFuture<T> response) {
+        PushClientMetrics metrics = this.metrics;
+        if (metrics == PushClientMetrics.NOOP || response == null)
+            return response;
+        // Only called once the request has been handed to the resolver, so waiting for a permit is not counted.
+        long start = System.nanoTime();
+        metrics.requestStarted(endpoint);
+        response.whenComplete((value, e) -> metrics.requestCompleted(endpoint, System.nanoTime() - start, e));
+        return response;
+    }
+
+    /**
+     * @param messages the messages the tickets were returned for, if known
+     */
+    private List<ExpoPushTicket> _recordTickets(List<ExpoPushMessage> messages, List<ExpoPushTicket> tickets) {
+        PushTokenSuppressionCache suppressionCache = this.suppressionCache;
+        if (suppressionCache != null) {
+            // Tickets come in the order of the recipients, unless something is off with the response.
+            Iterator<String> recipients = messages != null && tickets.size() == _getActualMessagesCount(messages)
+                    ? messages.stream().flatMap(message -> message.to.stream()).iterator()
+                    : null;
+            for (ExpoPushTicket ticket : tickets)
+                suppressionCache.record(ticket, recipients != null ? recipients.next() : null);
+        }
+        PushClientMetrics metrics = this.metrics;
+        if (metrics != PushClientMetrics.NOOP) {
+            for (ExpoPushTicket ticket : tickets)
+                metrics.ticketReceived(ticket);
+        }
+        return tickets;
+    }
+
+    private List<ExpoPushReceiept> _recordReceipts(List<ExpoPushReceiept> receipts) {
+        PushTokenSuppressionCache suppressionCache = this.suppressionCache;
+        if (suppressionCache != null) {
+            for (ExpoPushReceiept receipt : receipts)
+                suppressionCache.record(receipt);
+        }
+        PushTicketStore ticketStore = this.ticketStore;
+        if (ticketStore != null) {
+            for (ExpoPushReceiept receipt : receipts) {
+                if (receipt.id != null)
+                    receipt.setCorrelationKey(ticketStore.remove(receipt.id));
+            }
+        }
+        PushClientMetrics metrics = this.metrics;
+        if (metrics != PushClientMetrics.NOOP) {
+            for (ExpoPushReceiept receipt : receipts)
+                metrics.receiptReceived(receipt);
+        }
+        return receipts;
     }
 
     public static boolean isExponentPushToken(String token) {
-        String prefixA = "ExponentPushToken[";
-        String prefixB = "ExpoPushToken[";
-        String postfix = "]";
-        String regex = "[a-zA-Z0-9]{8}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{12}";
-
-        if (token.matches(regex)) return true;
-        if (!token.endsWith(postfix)) return false;
-        if (token.startsWith(prefixA)) return true;
-        if (token.startsWith(prefixB)) return true;
+        if (_isUuid(token)) return true;
+        if (!token.endsWith(PUSH_TOKEN_POSTFIX)) return false;
+        if (token.startsWith(PUSH_TOKEN_PREFIX_A)) return true;
+        if (token.startsWith(PUSH_TOKEN_PREFIX_B)) return true;
         return false;
     }
 
+    /**
+     * Validates tokens with {@link #isExponentPushToken(String)}, in parallel for large collections.
+     *
+     * @return the valid tokens under {@code true}, the invalid ones under {@code false}, both in encounter order
+     */
+    public static Map<Boolean, List<String>> partitionExponentPushTokens(Collection<String> tokens) {
+        Stream<String> stream = tokens.size() >= PARALLEL_TOKEN_VALIDATION_THRESHOLD
+                ? tokens.parallelStream()
+                : tokens.stream();
+        return stream.collect(Collectors.partitioningBy(PushClient::isExponentPushToken));
+    }
+
+    /**
+     * Same as matching {@code [a-zA-Z0-9]{8}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{12}},
+     * without compiling a pattern on every call.
+     */
+    private static boolean _isUuid(String token) {
+        if (token.length() != 36)
+            return false;
+        for (int i = 0; i < 36; i++) {
+            char c = token.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-')
+                    return false;
+            } else if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static long _getActualMessagesCount(List<ExpoPushMessage> messages) {
         return messages.stream().reduce(0, (acc, cur) -> acc + cur.to.size(), Integer::sum);
     }
@@ -146,64 +477,203 @@ public class PushClient {
         return _chunkItems(recieptIds, PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT);
     }
 
+    public Iterator<List<String>> chunkPushNotificationReceiptIds(Iterator<String> recieptIds) {
+        return _chunkItems(recieptIds, PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT);
+    }
+
+    public List<ExpoPushIdList> chunkPushNotificationReceiptIds(ExpoPushIdList recieptIds) {
+        List<ExpoPushIdList> chunks = new ArrayList<>();
+        for (int from = 0; from < recieptIds.size(); from += PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT) {
+            chunks.add(recieptIds.copyOfRange(from,
+                    (int) Math.min(recieptIds.size(), from + PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT)));
+        }
+        return chunks;
+    }
+
+    public <T> Iterator<List<T>> _chunkItems(Iterator<T> items, long chunkSize) {
+        return new Iterator<List<T>>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!items.hasNext())
+                    throw new NoSuchElementException();
+                List<T> chunk = new ArrayList<>();
+                while (items.hasNext() && chunk.size() < chunkSize) {
+                    chunk.add(items.next());
+                }
+                return chunk;
+            }
+        };
+    }
+
     public <T> List<List<T>> _chunkItems(List<T> items, long chunkSize) {
         List<List<T>> chunks = new ArrayList<>();
-        List<T> chunk = new ArrayList<>();
-        for (T item : items) {
-            chunk.add(item);
-            if (chunk.size() >= chunkSize) {
-                chunks.add(chunk);
-                chunk = new ArrayList<>();
-            }
-        }
+        _chunkItems(items.iterator(), chunkSize).forEachRemaining(chunks::add);
+        return chunks;
+    }
 
-        if (!chunk.isEmpty()) {
-            chunks.add(chunk);
+    /**
+     * Merges messages that carry the same notification, all fields but {@code to} being equal, into a single
+     * message per notification and drops duplicate and empty recipients. Fewer, fuller messages mean fewer
+     * bytes and requests once chunked. Bulk send results for a merged message refer to the first message
+     * that carried its notification.
+     */
+    public List<ExpoPushMessage> coalescePushNotifications(Iterable<ExpoPushMessage> messages) {
+        PushNotificationCoalescer coalescer = new PushNotificationCoalescer();
+        for (ExpoPushMessage message : messages) {
+            coalescer.add(message);
         }
-        return chunks;
+        return coalescer.toMessages();
     }
 
     public List<List<ExpoPushMessage>> chunkPushNotifications(List<ExpoPushMessage> messages) {
         List<List<ExpoPushMessage>> chunks = new ArrayList<>();
-        List<ExpoPushMessage> chunk = new ArrayList<>();
+        chunkPushNotifications(messages.iterator()).forEachRemaining(chunks::add);
+        return chunks;
+    }
 
-        long chunkMessagesCount = 0;
-        for (ExpoPushMessage message : messages) {
-            List<String> partialTo = new ArrayList<>();
-            for (String recipient : message.to) {
-                if (recipient.length() <= 0) continue;
-                partialTo.add(recipient);
-                chunkMessagesCount++;
-                if (chunkMessagesCount >= PUSH_NOTIFICATION_CHUNK_LIMIT) {
-                    // Cap this chunk here if it already exceeds PUSH_NOTIFICATION_CHUNK_LIMIT.
-                    // Then create a new chunk to continue on the remaining recipients for this message.
-                    chunk.add(new ExpoPushMessage(partialTo, message));
-                    chunks.add(chunk);
-                    chunk = new ArrayList<>();
-                    chunkMessagesCount = 0;
-                    partialTo = new ArrayList<>();
-                }
-            }
+    /**
+     * Chunks lazily, the next chunk is built from the source only when it is requested. Recipients in the
+     * {@link #setSuppressionCache(PushTokenSuppressionCache) suppression cache} are left out.
+     */
+    public Iterator<List<ExpoPushMessage>> chunkPushNotifications(Iterator<ExpoPushMessage> messages) {
+        PushTokenSuppressionCache suppressionCache = this.suppressionCache;
+        return new PushNotificationChunkIterator(messages, PUSH_NOTIFICATION_CHUNK_LIMIT,
+                maxChunkBytes, this::_encodedPayloadSize,
+                suppressionCache == null ? recipient -> false : suppressionCache::isSuppressed);
+    }
 
-            if (!partialTo.isEmpty()) {
-                chunk.add(new ExpoPushMessage(partialTo, message));
-            }
+    /**
+     * Chunks lazily, closing the returned stream closes {@code messages}.
+     */
+    public Stream<List<ExpoPushMessage>> chunkPushNotifications(Stream<ExpoPushMessage> messages) {
+        Spliterator<List<ExpoPushMessage>> chunks = Spliterators.spliteratorUnknownSize(
+                chunkPushNotifications(messages.iterator()), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(chunks, false).onClose(messages::close);
+    }
 
-            if (chunkMessagesCount >= PUSH_NOTIFICATION_CHUNK_LIMIT) {
-                // Cap this chunk if it exceeds PUSH_NOTIFICATION_CHUNK_LIMIT.
-                // Then create a new chunk to continue on the remaining messages.
-                chunks.add(chunk);
-                chunk = new ArrayList<>();
-                chunkMessagesCount = 0;
-            }
+    /**
+     * @return the encoded size of {@code message} without its recipients
+     */
+    long _encodedPayloadSize(ExpoPushMessage message) {
+        CountingOutputStream out = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(out, new ExpoPushMessage(Collections.emptyList(), message));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return out.count;
+    }
 
-        if (chunkMessagesCount > 0) {
-            // Add the remaining chunk to the chunks.
-            chunks.add(chunk);
+    private static class CountingOutputStream extends OutputStream {
+        private long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
         }
 
-        return chunks;
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public long getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    /**
+     * Limits the encoded size of the chunks built by {@link #chunkPushNotifications(List)} and the bulk send
+     * methods, on top of {@link #PUSH_NOTIFICATION_CHUNK_LIMIT} recipients. Chunks are filled as far as both
+     * limits allow. The size of each message is measured by encoding it once, without its recipients.
+     *
+     * @param _maxChunkBytes the limit in bytes, or {@link Long#MAX_VALUE} to only limit the number of recipients
+     */
+    public void setMaxChunkBytes(long _maxChunkBytes) {
+        if (_maxChunkBytes <= 0)
+            throw new IllegalArgumentException();
+        maxChunkBytes = _maxChunkBytes;
+    }
+
+    public PushRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Delays requests to the push server so they stay under the limits of {@code _rateLimiter}. Requests over
+     * the limit are sent later, the futures returned by this client complete once they have been answered.
+     *
+     * @param _rateLimiter the limiter, possibly shared with other clients, or null to send without a limit
+     */
+    public void setRateLimiter(PushRateLimiter _rateLimiter) {
+        rateLimiter = _rateLimiter;
+    }
+
+    public PushClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param _metrics receives serialization times, chunk sizes, request latencies and ticket and receipt outcomes
+     */
+    public void setMetrics(PushClientMetrics _metrics) {
+        metrics = _metrics == null ? PushClientMetrics.NOOP : _metrics;
+    }
+
+    public PushOutbox getOutbox() {
+        return outbox;
+    }
+
+    /**
+     * Logs every chunk sent by {@link #sendPushNotificationsAsync(List)} and the bulk send methods to
+     * {@code _outbox} before it is sent, and acknowledges it once the server has answered it. Chunks the server
+     * did not answer, or answered with a throttling or server error, stay in the outbox; after a failure or a
+     * restart, send what was left over with {@link #replayOutboxAsync()}.
+     *
+     * @param _outbox the outbox, or null to send without logging
+     */
+    public void setOutbox(PushOutbox _outbox) {
+        outbox = _outbox;
+    }
+
+    public PushTicketStore getTicketStore() {
+        return ticketStore;
+    }
+
+    /**
+     * Fills in the {@link ExpoPushReceiept#getCorrelationKey() correlation key} of every receipt returned by
+     * {@link #getPushNotificationReceiptsAsync(List)} from {@code _ticketStore}. Store a key for each ticket with
+     * {@link PushTicketStore#put(String, long)}; it is removed once the receipt has been returned.
+     *
+     * @param _ticketStore the store, or null to leave receipts without a key
+     */
+    public void setTicketStore(PushTicketStore _ticketStore) {
+        ticketStore = _ticketStore;
+    }
+
+    public PushTokenSuppressionCache getSuppressionCache() {
+        return suppressionCache;
+    }
+
+    /**
+     * Adds the tokens that tickets and receipts report as {@code DeviceNotRegistered} to {@code _suppressionCache},
+     * and leaves the tokens in it out when chunking, and so out of bulk sends. Recipients left out get no
+     * {@link ExpoPushSendResult}. Messages passed to {@link #sendPushNotificationsAsync(List)} directly are sent
+     * as they are.
+     *
+     * @param _suppressionCache the cache, possibly shared with other clients, or null to send to every token
+     */
+    public void setSuppressionCache(PushTokenSuppressionCache _suppressionCache) {
+        suppressionCache = _suppressionCache;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
     }
 
     public URI getBaseApiUrl() {
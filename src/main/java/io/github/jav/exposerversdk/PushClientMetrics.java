@@ -0,0 +1,72 @@
+package io.github.jav.exposerversdk;
+
+import java.net.URL;
+
+/**
+ * Receives timings and counts from {@link PushClient} and the resolvers. Every method does nothing by
+ * default, implement the ones you need and bridge them to your metrics library. Methods are called on the
+ * request path, often from several threads at once, and must be cheap and thread-safe.
+ * {@link LongAdderPushClientMetrics} is a ready-made implementation.
+ * <p>
+ * Endpoints are passed as {@link #SEND} and {@link #GET_RECEIPTS}, see {@link #endpoint(URL)}.
+ */
+public interface PushClientMetrics {
+    String SEND = "/push/send";
+    String GET_RECEIPTS = "/push/getReceipts";
+
+    PushClientMetrics NOOP = new PushClientMetrics() {
+    };
+
+    /**
+     * A request body was serialized.
+     */
+    default void serialized(String endpoint, long durationNanos, long bytes) {
+    }
+
+    /**
+     * A chunk of notifications is about to be sent.
+     */
+    default void chunkSent(int recipientCount) {
+    }
+
+    default void requestStarted(String endpoint) {
+    }
+
+    /**
+     * A request started with {@link #requestStarted(String)} has ended, retries included.
+     *
+     * @param error the failure, or null if the request succeeded
+     */
+    default void requestCompleted(String endpoint, long durationNanos, Throwable error) {
+    }
+
+    /**
+     * The push server answered a single attempt with {@code statusCode}.
+     */
+    default void responseReceived(String endpoint, int statusCode, long durationNanos) {
+    }
+
+    /**
+     * A failed attempt is going to be sent again after {@code delayNanos}.
+     */
+    default void retryScheduled(String endpoint, int attempt, long delayNanos) {
+    }
+
+    default void ticketReceived(ExpoPushTicket ticket) {
+    }
+
+    default void receiptReceived(ExpoPushReceiept receipt) {
+    }
+
+    /**
+     * @return {@link #SEND} or {@link #GET_RECEIPTS} for the push endpoints, the path of {@code url} otherwise
+     */
+    static String endpoint(URL url) {
+        String path = url.getPath();
+        if (path.endsWith(SEND))
+            return SEND;
+        if (path.endsWith(GET_RECEIPTS))
+            return GET_RECEIPTS;
+        return path;
+    }
+}
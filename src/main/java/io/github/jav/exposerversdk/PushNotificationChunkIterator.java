@@ -0,0 +1,172 @@
+package io.github.jav.exposerversdk;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Builds chunks on demand from a source of messages, so only the chunk being built is held in memory.
+ * A chunk holds at most {@code chunkLimit} recipients, messages with more recipients are split over
+ * several chunks. Empty recipients are dropped, as are recipients matched by an optional filter, e.g. tokens
+ * that are known to be no longer registered.
+ * <p>
+ * With a byte limit, chunks are also kept under that many bytes of encoded JSON. Each chunk is filled
+ * as far as the limit allows, splitting a message's recipients when only some of them still fit. A single
+ * recipient whose message alone exceeds the limit is still sent, in a chunk of its own.
+ */
+class PushNotificationChunkIterator implements Iterator<List<ExpoPushMessage>> {
+    static final long NO_BYTE_LIMIT = Long.MAX_VALUE;
+    // The brackets of the JSON array holding the messages of a chunk.
+    private static final long CHUNK_OVERHEAD_BYTES = 2;
+
+    private final Iterator<ExpoPushMessage> messages;
+    private final long chunkLimit;
+    private final long byteLimit;
+    private final ToLongFunction<ExpoPushMessage> payloadSize;
+    private final Predicate<String> skipRecipient;
+
+    // The message being split, the index of its next recipient and its encoded size without recipients.
+    private ExpoPushMessage message = null;
+    private int recipientIndex = 0;
+    private long messagePayloadBytes = 0;
+    private List<ExpoPushMessage> nextChunk = null;
+
+    PushNotificationChunkIterator(Iterator<ExpoPushMessage> _messages, long _chunkLimit) {
+        this(_messages, _chunkLimit, NO_BYTE_LIMIT, message -> 0, recipient -> false);
+    }
+
+    /**
+     * @param _payloadSize   the encoded size in bytes of a message with an empty recipient list
+     * @param _skipRecipient matches recipients to leave out
+     */
+    PushNotificationChunkIterator(Iterator<ExpoPushMessage> _messages, long _chunkLimit,
+                                  long _byteLimit, ToLongFunction<ExpoPushMessage> _payloadSize,
+                                  Predicate<String> _skipRecipient) {
+        if (_chunkLimit <= 0 || _byteLimit <= 0)
+            throw new IllegalArgumentException();
+        messages = _messages;
+        chunkLimit = _chunkLimit;
+        byteLimit = _byteLimit;
+        payloadSize = _payloadSize;
+        skipRecipient = _skipRecipient;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextChunk == null)
+            nextChunk = _buildChunk();
+        return nextChunk != null;
+    }
+
+    @Override
+    public List<ExpoPushMessage> next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        List<ExpoPushMessage> chunk = nextChunk;
+        nextChunk = null;
+        return chunk;
+    }
+
+    private List<ExpoPushMessage> _buildChunk() {
+        boolean byteLimited = byteLimit != NO_BYTE_LIMIT;
+        List<ExpoPushMessage> chunk = new ArrayList<>();
+        long chunkMessagesCount = 0;
+        long chunkBytes = CHUNK_OVERHEAD_BYTES;
+        boolean chunkFull = false;
+
+        while (chunkMessagesCount < chunkLimit && !chunkFull) {
+            if (message == null) {
+                if (!messages.hasNext())
+                    break;
+                message = messages.next();
+                recipientIndex = 0;
+                if (byteLimited)
+                    messagePayloadBytes = payloadSize.applyAsLong(message);
+            }
+
+            List<String> to = message.to;
+            int sliceStart = recipientIndex;
+            long sliceRecipientCount = 0;
+            boolean hasSkippedRecipients = false;
+            while (recipientIndex < to.size() && chunkMessagesCount < chunkLimit) {
+                String recipient = to.get(recipientIndex);
+                if (recipient.length() <= 0 || skipRecipient.test(recipient)) {
+                    hasSkippedRecipients = true;
+                    recipientIndex++;
+                    continue;
+                }
+                if (byteLimited) {
+                    // A new slice repeats the message payload, plus a comma between messages.
+                    long recipientBytes = _recipientBytes(recipient)
+                            + (sliceRecipientCount == 0 ? messagePayloadBytes + 1 : 0);
+                    if (chunkMessagesCount > 0 && chunkBytes + recipientBytes > byteLimit) {
+                        chunkFull = true;
+                        break;
+                    }
+                    chunkBytes += recipientBytes;
+                }
+                recipientIndex++;
+                sliceRecipientCount++;
+                chunkMessagesCount++;
+            }
+
+            if (sliceRecipientCount > 0) {
+                chunk.add(_slice(message, sliceStart, recipientIndex, hasSkippedRecipients));
+            }
+            if (recipientIndex >= to.size()) {
+                // Continue with the next message, otherwise the remaining recipients go into the next chunk.
+                message = null;
+            }
+        }
+
+        return chunkMessagesCount > 0 ? chunk : null;
+    }
+
+    /**
+     * @return the encoded size of a recipient in the {@code to} array: the UTF-8 bytes, quotes and a comma
+     */
+    static long _recipientBytes(String recipient) {
+        long bytes = 3;
+        for (int i = 0; i < recipient.length(); i++) {
+            char c = recipient.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20)
+                    bytes += 6;
+                else if (c == '"' || c == '\\')
+                    bytes += 2;
+                else
+                    bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Slices share the recipient list of the original message through a {@code subList} view, so splitting a
+     * message costs one small object per chunk instead of a copy of every recipient. Only slices that contain
+     * skipped recipients are copied, to leave them out.
+     */
+    private ExpoPushMessage _slice(ExpoPushMessage message, int from, int to, boolean hasSkippedRecipients) {
+        if (!hasSkippedRecipients) {
+            if (from == 0 && to == message.to.size())
+                return message;
+            return new ExpoPushMessage(message.to.subList(from, to), message);
+        }
+        List<String> partialTo = new ArrayList<>();
+        for (String recipient : message.to.subList(from, to)) {
+            if (recipient.length() > 0 && !skipRecipient.test(recipient))
+                partialTo.add(recipient);
+        }
+        return new ExpoPushMessage(partialTo, message);
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.jav.exposerversdk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges messages that carry the same notification into one message per distinct payload, with every
+ * recipient listed once. Messages are grouped by a hash of their payload fields, so each message is
+ * compared in full only against the messages that share its hash.
+ */
+class PushNotificationCoalescer {
+    private final Map<PayloadKey, Set<String>> recipientsByPayload = new LinkedHashMap<>();
+    private final Map<PayloadKey, ExpoPushMessage> templates = new HashMap<>();
+
+    void add(ExpoPushMessage message) {
+        if (message.to == null || message.to.isEmpty())
+            return;
+        PayloadKey key = new PayloadKey(message);
+        Set<String> recipients = recipientsByPayload.get(key);
+        if (recipients == null) {
+            recipients = new LinkedHashSet<>();
+            recipientsByPayload.put(key, recipients);
+            templates.put(key, message);
+        }
+        for (String recipient : message.to) {
+            if (recipient.length() > 0)
+                recipients.add(recipient);
+        }
+    }
+
+    /**
+     * @return one message per distinct payload in the order the payloads were first seen, recipients in
+     * the order they were first seen
+     */
+    List<ExpoPushMessage> toMessages() {
+        List<ExpoPushMessage> coalesced = new ArrayList<>(recipientsByPayload.size());
+        for (Map.Entry<PayloadKey, Set<String>> entry : recipientsByPayload.entrySet()) {
+            if (entry.getValue().isEmpty())
+                continue;
+            coalesced.add(new ExpoPushMessage(new ArrayList<>(entry.getValue()), templates.get(entry.getKey())));
+        }
+        return coalesced;
+    }
+
+    private static class PayloadKey {
+        private final ExpoPushMessage message;
+        private final int hash;
+
+        PayloadKey(ExpoPushMessage _message) {
+            message = _message;
+            hash = _message.payloadHashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object _o) {
+            if (!(_o instanceof PayloadKey))
+                return false;
+            PayloadKey o = (PayloadKey) _o;
+            return hash == o.hash && message.payloadEquals(o.message);
+        }
+    }
+}
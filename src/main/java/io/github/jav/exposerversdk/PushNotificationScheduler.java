@@ -0,0 +1,391 @@
+package io.github.jav.exposerversdk;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Queues messages by {@link ExpoPushMessage#getPriority() priority} and sends them through
+ * {@link PushClient#sendPushNotificationsBulkAsync(Iterator, int, java.util.function.Consumer)}, so
+ * {@code "high"} messages do not wait behind a backlog of {@code "normal"} ones.
+ * <p>
+ * Each priority has its own lock-free queue. Chunks are filled by weighted round robin over the queues: with the
+ * default weights, up to 8 high, then 4 default, then 1 normal priority message, as long as each queue has
+ * messages. Chunks are built only as earlier ones are sent, so a message submitted during a backlog goes into
+ * one of the next chunks according to its priority.
+ * <p>
+ * Messages whose {@code expiration} has passed, or that were queued for longer than their {@code ttl}, are dropped
+ * before they are serialized and reported to {@link PushSchedulerListener#onExpired(ExpoPushMessage)}. The
+ * {@code ttl} of a message that is sent is not reduced by the time it was queued.
+ * <p>
+ * When a chunk fails, the bulk send stops and the messages it had taken but not sent are handed to
+ * {@link PushSchedulerListener#onError(List, Throwable)}.
+ */
+public class PushNotificationScheduler implements AutoCloseable {
+    public static final int DEFAULT_HIGH_WEIGHT = 8;
+    public static final int DEFAULT_DEFAULT_WEIGHT = 4;
+    public static final int DEFAULT_NORMAL_WEIGHT = 1;
+    public static final Duration DEFAULT_RESUME_DELAY = Duration.ofSeconds(1);
+
+    public enum Priority {
+        HIGH, DEFAULT, NORMAL;
+
+        /**
+         * @return the priority of {@code message}, messages without one have {@link #DEFAULT} priority
+         */
+        public static Priority of(ExpoPushMessage message) {
+            String priority = message.getPriority();
+            if (priority == null)
+                return DEFAULT;
+            switch (priority.toLowerCase(Locale.ROOT)) {
+                case "high":
+                    return HIGH;
+                case "normal":
+                    return NORMAL;
+                default:
+                    return DEFAULT;
+            }
+        }
+    }
+
+    private final PushClient client;
+    private final int maxChunksInFlight;
+    private final PushSchedulerListener listener;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final LongSupplier clock;
+
+    private final Lane[] lanes = new Lane[Priority.values().length];
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private volatile Duration resumeDelay = DEFAULT_RESUME_DELAY;
+    private volatile boolean closed = false;
+
+    public PushNotificationScheduler(PushClient _client, PushSchedulerListener _listener) {
+        this(_client, PushClient.DEFAULT_MAX_CHUNKS_IN_FLIGHT, _listener);
+    }
+
+    public PushNotificationScheduler(PushClient _client, int _maxChunksInFlight, PushSchedulerListener _listener) {
+        this(_client, _maxChunksInFlight, Executors.newSingleThreadScheduledExecutor(
+                new DefaultPushServerResolver.DaemonThreadFactory("expo-push-scheduler")), true, _listener,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param _scheduler resumes sending after a failure, it is not shut down by {@link #close()}
+     */
+    public PushNotificationScheduler(PushClient _client, int _maxChunksInFlight, ScheduledExecutorService _scheduler,
+                                     PushSchedulerListener _listener) {
+        this(_client, _maxChunksInFlight, _scheduler, false, _listener, System::currentTimeMillis);
+    }
+
+    PushNotificationScheduler(PushClient _client, int _maxChunksInFlight, ScheduledExecutorService _scheduler,
+                              boolean _ownsScheduler, PushSchedulerListener _listener, LongSupplier _clock) {
+        if (_maxChunksInFlight <= 0)
+            throw new IllegalArgumentException();
+        client = _client;
+        maxChunksInFlight = _maxChunksInFlight;
+        scheduler = _scheduler;
+        ownsScheduler = _ownsScheduler;
+        listener = _listener;
+        clock = _clock;
+        lanes[Priority.HIGH.ordinal()] = new Lane(DEFAULT_HIGH_WEIGHT);
+        lanes[Priority.DEFAULT.ordinal()] = new Lane(DEFAULT_DEFAULT_WEIGHT);
+        lanes[Priority.NORMAL.ordinal()] = new Lane(DEFAULT_NORMAL_WEIGHT);
+    }
+
+    /**
+     * Queues {@code message} and starts sending if nothing is being sent.
+     */
+    public void submit(ExpoPushMessage message) {
+        if (closed)
+            throw new IllegalStateException("Scheduler is closed");
+        long deadline = Long.MAX_VALUE;
+        // A ttl of 0 asks for delivery only if the device is reachable right away, which says nothing about queueing.
+        if (message.ttl > 0)
+            deadline = clock.getAsLong() + TimeUnit.SECONDS.toMillis(message.ttl);
+        if (message.expiration > 0)
+            deadline = Math.min(deadline, TimeUnit.SECONDS.toMillis(message.expiration));
+        Lane lane = lanes[Priority.of(message).ordinal()];
+        lane.queue.offer(new Queued(message, deadline));
+        lane.size.incrementAndGet();
+        _send();
+    }
+
+    /**
+     * @return the number of messages of {@code priority} waiting to be sent
+     */
+    public long getQueuedCount(Priority priority) {
+        return lanes[priority.ordinal()].size.get();
+    }
+
+    /**
+     * @return the number of messages dropped because they expired while queued
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    public int getWeight(Priority priority) {
+        return lanes[priority.ordinal()].weight;
+    }
+
+    /**
+     * @param _weight how many messages of {@code priority} are taken in a row while other priorities wait
+     */
+    public void setWeight(Priority priority, int _weight) {
+        if (_weight <= 0)
+            throw new IllegalArgumentException();
+        lanes[priority.ordinal()].weight = _weight;
+    }
+
+    public Duration getResumeDelay() {
+        return resumeDelay;
+    }
+
+    /**
+     * @param _resumeDelay how long to wait after a failed chunk before sending the messages still queued
+     */
+    public void setResumeDelay(Duration _resumeDelay) {
+        if (_resumeDelay == null || _resumeDelay.isNegative())
+            throw new IllegalArgumentException();
+        resumeDelay = _resumeDelay;
+    }
+
+    /**
+     * Starts a bulk send of the queued messages unless one is running. A bulk send ends once the queues are
+     * empty, so it is checked again afterwards for messages submitted in the meantime.
+     */
+    private void _send() {
+        if (closed || !_hasQueued() || !sending.compareAndSet(false, true))
+            return;
+        BulkRun run = new BulkRun();
+        client.sendPushNotificationsBulkAsync(new WeightedIterator(run), maxChunksInFlight, run::onResult)
+                .whenComplete((v, e) -> {
+                    sending.set(false);
+                    if (e == null) {
+                        _send();
+                        return;
+                    }
+                    try {
+                        listener.onError(run.unsent(), e);
+                    } catch (RuntimeException listenerError) {
+                        listenerError.printStackTrace();
+                    }
+                    try {
+                        scheduler.schedule(this::_send, resumeDelay.toNanos(), TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException rejected) {
+                        // Closed in the meantime.
+                    }
+                });
+    }
+
+    private boolean _hasQueued() {
+        for (Lane lane : lanes) {
+            if (lane.size.get() > 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return whether {@code recipient} is sent to, rather than left out of its chunk
+     */
+    private boolean _isSent(String recipient) {
+        PushTokenSuppressionCache suppressionCache = client.getSuppressionCache();
+        return recipient.length() > 0 && (suppressionCache == null || !suppressionCache.isSuppressed(recipient));
+    }
+
+    /**
+     * Stops sending, a bulk send takes no further messages. Messages still queued are not sent.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (ownsScheduler)
+            scheduler.shutdownNow();
+    }
+
+    private static class Lane {
+        final ConcurrentLinkedQueue<Queued> queue = new ConcurrentLinkedQueue<>();
+        // ConcurrentLinkedQueue#size() walks the whole queue.
+        final AtomicLong size = new AtomicLong();
+        volatile int weight;
+
+        Lane(int _weight) {
+            weight = _weight;
+        }
+    }
+
+    private static class Queued {
+        final ExpoPushMessage message;
+        // Epoch millis after which the message is not sent.
+        final long deadline;
+
+        Queued(ExpoPushMessage _message, long _deadline) {
+            message = _message;
+            deadline = _deadline;
+        }
+    }
+
+    private static class Tracked {
+        final long order;
+        // Recipients the message is sent to, and the distinct ones that got a ticket so far.
+        int expected;
+        int answeredCount = 0;
+        final Set<String> answered = new HashSet<>();
+
+        Tracked(long _order, int _expected) {
+            order = _order;
+            expected = _expected;
+        }
+    }
+
+    /**
+     * The messages one bulk send took from the queues until every recipient of each got a ticket, so those
+     * not sent can be reported if a chunk fails.
+     */
+    private class BulkRun {
+        // By identity, messages compare by content. Guarded by itself.
+        private final IdentityHashMap<ExpoPushMessage, Tracked> pending = new IdentityHashMap<>();
+        private long taken = 0;
+
+        void onTaken(ExpoPushMessage message) {
+            int expected = 0;
+            for (String recipient : message.to) {
+                if (_isSent(recipient))
+                    expected++;
+            }
+            synchronized (pending) {
+                Tracked tracked = pending.get(message);
+                if (tracked != null)
+                    tracked.expected += expected;
+                else
+                    pending.put(message, new Tracked(taken++, expected));
+            }
+        }
+
+        void onResult(ExpoPushSendResult result) {
+            synchronized (pending) {
+                Tracked tracked = pending.get(result.getMessage());
+                if (tracked != null) {
+                    tracked.answered.add(result.getRecipient());
+                    if (++tracked.answeredCount >= tracked.expected)
+                        pending.remove(result.getMessage());
+                }
+            }
+            // A failing listener must not fail the bulk send.
+            try {
+                listener.onResult(result);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * @return the pending messages in the order they were taken, left with their recipients without a ticket
+         */
+        List<ExpoPushMessage> unsent() {
+            List<ExpoPushMessage> messages;
+            List<Tracked> tracked;
+            synchronized (pending) {
+                messages = new ArrayList<>(pending.keySet());
+                messages.sort(Comparator.comparingLong(message -> pending.get(message).order));
+                tracked = new ArrayList<>(messages.size());
+                for (ExpoPushMessage message : messages)
+                    tracked.add(pending.get(message));
+            }
+            List<ExpoPushMessage> unsent = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                ExpoPushMessage message = messages.get(i);
+                Set<String> answered = tracked.get(i).answered;
+                List<String> to = new ArrayList<>();
+                for (String recipient : message.to) {
+                    if (!answered.contains(recipient) && _isSent(recipient))
+                        to.add(recipient);
+                }
+                if (to.size() == message.to.size())
+                    unsent.add(message);
+                else if (!to.isEmpty())
+                    unsent.add(new ExpoPushMessage(to, message));
+            }
+            return unsent;
+        }
+    }
+
+    /**
+     * Takes messages from the lanes in weighted round robin order, dropping expired ones. Only advanced by
+     * one thread at a time, by the bulk sender.
+     */
+    private class WeightedIterator implements Iterator<ExpoPushMessage> {
+        private final BulkRun run;
+        private int lane = 0;
+        private int taken = 0;
+        private ExpoPushMessage next = null;
+
+        WeightedIterator(BulkRun _run) {
+            run = _run;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null)
+                next = _take();
+            return next != null;
+        }
+
+        @Override
+        public ExpoPushMessage next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            ExpoPushMessage message = next;
+            next = null;
+            return message;
+        }
+
+        private ExpoPushMessage _take() {
+            if (closed)
+                return null;
+            // Every lane is visited at most twice: once to use up what is left of its turn, once for a new one.
+            for (int visited = 0; visited <= lanes.length; ) {
+                Lane current = lanes[lane];
+                Queued queued = taken < current.weight ? current.queue.poll() : null;
+                if (queued == null) {
+                    lane = (lane + 1) % lanes.length;
+                    taken = 0;
+                    visited++;
+                    continue;
+                }
+                current.size.decrementAndGet();
+                if (queued.deadline != Long.MAX_VALUE && queued.deadline <= clock.getAsLong()) {
+                    expiredCount.incrementAndGet();
+                    try {
+                        listener.onExpired(queued.message);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                    continue;
+                }
+                taken++;
+                run.onTaken(queued.message);
+                return queued.message;
+            }
+            return null;
+        }
+    }
+}
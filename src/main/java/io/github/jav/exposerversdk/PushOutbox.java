@@ -0,0 +1,446 @@
+package io.github.jav.exposerversdk;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead log of the chunks handed to the push server, so chunks that were not acknowledged when the
+ * JVM stopped can be sent again after a restart, see {@link PushClient#setOutbox(PushOutbox)}.
+ * <p>
+ * The log is a series of memory-mapped segment files in one directory. A chunk is appended as a record holding
+ * its request body and acknowledged with a small ack record. Appends return a future completed once the record
+ * is on disk; a background thread syncs the log, so every append that arrives while a sync is running is made
+ * durable by the next one. Segments are deleted once every chunk in them, and in all older segments, has been
+ * acknowledged. On {@link #open(Path) open} the log is read back and the chunks that were never acknowledged are
+ * available from {@link #getRecoveredChunks()}. A record cut short by a crash is detected by its checksum and
+ * ignored, together with everything after it.
+ * <p>
+ * A chunk is claimed while it is being sent: appended chunks start out claimed, and
+ * {@link #claimPendingChunks()} claims the unacknowledged chunks nobody is sending. A chunk whose send failed
+ * is {@link #release(long) released} and claimed again by the next replay.
+ * <p>
+ * Delivery is at least once: a chunk that was sent but whose ack did not reach the disk is sent again.
+ */
+public class PushOutbox implements AutoCloseable {
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte RECORD_CHUNK = 1;
+    private static final byte RECORD_ACK = 2;
+    // Payload length, type and sequence before the payload, CRC32 after it.
+    private static final int RECORD_HEADER_BYTES = 4 + 1 + 8;
+    private static final int RECORD_TRAILER_BYTES = 4;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private final Object lock = new Object();
+    // Segments by id, oldest first. The last one is being appended to.
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    // Unacknowledged chunks by sequence.
+    private final TreeMap<Long, ChunkRecord> unacked = new TreeMap<>();
+    private final ArrayDeque<DurabilityWaiter> waiters = new ArrayDeque<>();
+    private long nextSequence = 1;
+    private long appendedSequence = 0;
+    private boolean closed = false;
+
+    private final List<PendingChunk> recoveredChunks;
+    private final Thread flusher;
+
+    private PushOutbox(Path _directory, long _segmentSize) throws IOException {
+        directory = _directory;
+        segmentSize = _segmentSize;
+        Files.createDirectories(directory);
+        recoveredChunks = Collections.unmodifiableList(_recover());
+        flusher = new DefaultPushServerResolver.DaemonThreadFactory("expo-push-outbox-" + directory.getFileName())
+                .newThread(this::_flushLoop);
+        flusher.start();
+    }
+
+    public static PushOutbox open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize the size of each segment file; a chunk bigger than that gets a segment of its own
+     */
+    public static PushOutbox open(Path directory, long segmentSize) throws IOException {
+        if (segmentSize < RECORD_HEADER_BYTES + RECORD_TRAILER_BYTES || segmentSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException();
+        return new PushOutbox(directory, segmentSize);
+    }
+
+    /**
+     * Appends the request body of a chunk.
+     *
+     * @return a future completed with the sequence number of the chunk once it is on disk
+     */
+    public CompletableFuture<Long> append(ByteBuffer chunkBody) {
+        CompletableFuture<Long> durable = new CompletableFuture<>();
+        synchronized (lock) {
+            try {
+                _checkOpen();
+                long sequence = nextSequence++;
+                ChunkRecord record = _write(RECORD_CHUNK, sequence, chunkBody);
+                record.segment.unackedCount++;
+                record.claimed = true;
+                unacked.put(sequence, record);
+                appendedSequence = sequence;
+                waiters.add(new DurabilityWaiter(sequence, durable));
+                lock.notifyAll();
+            } catch (IOException | RuntimeException e) {
+                durable.completeExceptionally(e);
+            }
+        }
+        return durable;
+    }
+
+    /**
+     * Marks a chunk as handled, it will not be recovered again. Acks are synced with the next append, or on close.
+     */
+    public void ack(long sequence) throws IOException {
+        synchronized (lock) {
+            _checkOpen();
+            ChunkRecord record = unacked.remove(sequence);
+            if (record == null)
+                return;
+            _write(RECORD_ACK, sequence, ByteBuffer.allocate(0));
+            record.segment.unackedCount--;
+            _deleteHandledSegments();
+        }
+    }
+
+    /**
+     * Marks a claimed chunk as no longer being sent, without acknowledging it, e.g. because its send failed.
+     */
+    public void release(long sequence) {
+        synchronized (lock) {
+            ChunkRecord record = unacked.get(sequence);
+            if (record != null)
+                record.claimed = false;
+        }
+    }
+
+    /**
+     * Claims every chunk that is neither acknowledged nor claimed, so concurrent callers never get the same chunk.
+     *
+     * @return the claimed chunks, oldest first; {@link #ack(long) ack} or {@link #release(long) release} each
+     */
+    public List<PendingChunk> claimPendingChunks() {
+        synchronized (lock) {
+            List<PendingChunk> chunks = new ArrayList<>();
+            for (Map.Entry<Long, ChunkRecord> entry : unacked.entrySet()) {
+                ChunkRecord record = entry.getValue();
+                if (record.claimed)
+                    continue;
+                record.claimed = true;
+                chunks.add(new PendingChunk(entry.getKey(), record.body()));
+            }
+            return chunks;
+        }
+    }
+
+    /**
+     * @return the chunks that had not been acknowledged when this outbox was opened, oldest first. This is a
+     * snapshot, use {@link #claimPendingChunks()} to get the chunks still waiting to be sent.
+     */
+    public List<PendingChunk> getRecoveredChunks() {
+        return recoveredChunks;
+    }
+
+    /**
+     * @return the number of chunks appended or recovered and not acknowledged yet
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return unacked.size();
+        }
+    }
+
+    /**
+     * @return the number of segment files currently in use
+     */
+    public int getSegmentCount() {
+        synchronized (lock) {
+            return segments.size();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private ChunkRecord _write(byte type, long sequence, ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        long recordBytes = (long) RECORD_HEADER_BYTES + length + RECORD_TRAILER_BYTES;
+        Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (segment == null || segment.buffer.remaining() < recordBytes + 4) {
+            long id = segment == null ? 0 : segment.id + 1;
+            if (segment != null)
+                segment.buffer.force();
+            segment = _openSegment(id, Math.max(segmentSize, recordBytes + 4));
+            segments.put(id, segment);
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int start = buffer.position();
+        buffer.putInt(length).put(type).putLong(sequence);
+        buffer.put(payload.duplicate());
+        CRC32 crc = new CRC32();
+        ByteBuffer checked = buffer.duplicate();
+        // Through Buffer, the ByteBuffer overrides of position(int) and limit(int) are missing before Java 9.
+        ((Buffer) checked).position(start + 4).limit(start + RECORD_HEADER_BYTES + length);
+        crc.update(checked);
+        buffer.putInt((int) crc.getValue());
+        return new ChunkRecord(segment, start + RECORD_HEADER_BYTES, length);
+    }
+
+    private Segment _openSegment(long id, long size) throws IOException {
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long mappedSize = Math.max(size, channel.size());
+            // The mapping stays valid after the channel is closed.
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize));
+        }
+    }
+
+    private void _deleteHandledSegments() throws IOException {
+        // Only the oldest segments are deleted: acks for their chunks may live in any newer segment.
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest.unackedCount > 0)
+                return;
+            segments.pollFirstEntry();
+            Files.deleteIfExists(oldest.path);
+        }
+    }
+
+    private List<PendingChunk> _recover() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream)
+                paths.add(path);
+        }
+        Collections.sort(paths);
+
+        LinkedHashMap<Long, ChunkRecord> pending = new LinkedHashMap<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = _openSegment(id, 0);
+            segments.put(id, segment);
+            _readRecords(segment, pending);
+        }
+        if (!segments.isEmpty()) {
+            // Clear what follows the last valid record, so stale records past a torn one are never read back.
+            MappedByteBuffer buffer = segments.lastEntry().getValue().buffer;
+            byte[] zeros = new byte[Math.min(64 * 1024, buffer.remaining())];
+            ByteBuffer tail = buffer.duplicate();
+            while (tail.hasRemaining())
+                tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+        }
+
+        List<PendingChunk> recovered = new ArrayList<>();
+        for (Map.Entry<Long, ChunkRecord> entry : pending.entrySet()) {
+            ChunkRecord record = entry.getValue();
+            record.segment.unackedCount++;
+            unacked.put(entry.getKey(), record);
+            recovered.add(new PendingChunk(entry.getKey(), record.body()));
+        }
+        _deleteHandledSegments();
+        return recovered;
+    }
+
+    private void _readRecords(Segment segment, LinkedHashMap<Long, ChunkRecord> pending) {
+        MappedByteBuffer buffer = segment.buffer;
+        while (buffer.remaining() >= RECORD_HEADER_BYTES + RECORD_TRAILER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length <= 0 && buffer.get(start + 4) != RECORD_ACK
+                    || length < 0 || length > buffer.remaining() - RECORD_HEADER_BYTES - RECORD_TRAILER_BYTES)
+                break;
+            byte type = buffer.get(start + 4);
+            long sequence = buffer.getLong(start + 5);
+            ByteBuffer checked = buffer.duplicate();
+            ((Buffer) checked).position(start + 4).limit(start + RECORD_HEADER_BYTES + length);
+            CRC32 crc = new CRC32();
+            crc.update(checked);
+            if ((int) crc.getValue() != buffer.getInt(start + RECORD_HEADER_BYTES + length))
+                break;
+
+            if (type == RECORD_CHUNK) {
+                pending.put(sequence, new ChunkRecord(segment, start + RECORD_HEADER_BYTES, length));
+            } else if (type == RECORD_ACK) {
+                pending.remove(sequence);
+            } else {
+                break;
+            }
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            ((Buffer) buffer).position(start + RECORD_HEADER_BYTES + length + RECORD_TRAILER_BYTES);
+        }
+        // New records overwrite whatever follows the last valid one, e.g. a record torn by a crash.
+    }
+
+    private void _flushLoop() {
+        while (true) {
+            long target;
+            List<Segment> toForce = new ArrayList<>();
+            synchronized (lock) {
+                while (!closed && waiters.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed && waiters.isEmpty())
+                    return;
+                target = appendedSequence;
+                toForce.add(segments.lastEntry().getValue());
+            }
+
+            IOException failure = null;
+            try {
+                // Every record appended before this point is covered, however many there are.
+                for (Segment segment : toForce)
+                    segment.buffer.force();
+            } catch (RuntimeException e) {
+                failure = new IOException("Could not sync the outbox", e);
+            }
+
+            List<DurabilityWaiter> done = new ArrayList<>();
+            synchronized (lock) {
+                Iterator<DurabilityWaiter> it = waiters.iterator();
+                while (it.hasNext()) {
+                    DurabilityWaiter waiter = it.next();
+                    if (waiter.sequence > target)
+                        break;
+                    done.add(waiter);
+                    it.remove();
+                }
+            }
+            for (DurabilityWaiter waiter : done) {
+                if (failure == null)
+                    waiter.future.complete(waiter.sequence);
+                else
+                    waiter.future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void _checkOpen() throws IOException {
+        if (closed)
+            throw new IOException("Outbox is closed");
+    }
+
+    /**
+     * Syncs everything appended or acknowledged so far and stops the background thread.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed)
+                return;
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            for (Segment segment : segments.values())
+                segment.buffer.force();
+        }
+    }
+
+    /**
+     * A chunk read back from the log: its sequence number, to {@link #ack(long) acknowledge} it, and its
+     * request body.
+     */
+    public static class PendingChunk {
+        private final long sequence;
+        private final byte[] body;
+
+        PendingChunk(long _sequence, byte[] _body) {
+            sequence = _sequence;
+            body = _body;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return a read-only view of the request body, the JSON array of messages
+         */
+        public ByteBuffer getBody() {
+            return ByteBuffer.wrap(body).asReadOnlyBuffer();
+        }
+    }
+
+    private static class Segment {
+        final long id;
+        final Path path;
+        final MappedByteBuffer buffer;
+        int unackedCount = 0;
+
+        Segment(long _id, Path _path, MappedByteBuffer _buffer) {
+            id = _id;
+            path = _path;
+            buffer = _buffer;
+        }
+    }
+
+    // Where the body of an unacknowledged chunk is in its segment. Segments outlive their unacknowledged chunks.
+    private static class ChunkRecord {
+        final Segment segment;
+        final int offset;
+        final int length;
+        boolean claimed = false;
+
+        ChunkRecord(Segment _segment, int _offset, int _length) {
+            segment = _segment;
+            offset = _offset;
+            length = _length;
+        }
+
+        byte[] body() {
+            byte[] body = new byte[length];
+            ByteBuffer payload = segment.buffer.duplicate();
+            ((Buffer) payload).position(offset);
+            payload.get(body);
+            return body;
+        }
+    }
+
+    private static class DurabilityWaiter {
+        final long sequence;
+        final CompletableFuture<Long> future;
+
+        DurabilityWaiter(long _sequence, CompletableFuture<Long> _future) {
+            sequence = _sequence;
+            future = _future;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.jav.exposerversdk;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of requests and of notifications sent to the push server. One limiter can be shared by
+ * every {@link PushClient} in the JVM, see {@link PushClient#setRateLimiter(PushRateLimiter)}.
+ * <p>
+ * Each limit is a token bucket that holds up to one second worth of permits, kept as a single theoretical
+ * arrival time that is advanced with compare-and-set, so acquiring never takes a lock. Callers over the limit
+ * are not blocked: {@link #acquireAsync(long)} returns a future that completes once their turn has come.
+ */
+public class PushRateLimiter implements AutoCloseable {
+    private final Bucket requests;
+    private final Bucket notifications;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    /**
+     * @param requestsPerSecond      the sustained number of requests per second
+     * @param notificationsPerSecond the sustained number of notifications per second, counting every recipient
+     */
+    public PushRateLimiter(double requestsPerSecond, double notificationsPerSecond) {
+        this(requestsPerSecond, notificationsPerSecond, Executors.newSingleThreadScheduledExecutor(
+                new DefaultPushServerResolver.DaemonThreadFactory("expo-push-rate-limiter")), true, System::nanoTime);
+    }
+
+    /**
+     * @param _scheduler completes the futures of delayed callers, it is not shut down by {@link #close()}
+     */
+    public PushRateLimiter(double requestsPerSecond, double notificationsPerSecond, ScheduledExecutorService _scheduler) {
+        this(requestsPerSecond, notificationsPerSecond, _scheduler, false, System::nanoTime);
+    }
+
+    PushRateLimiter(double requestsPerSecond, double notificationsPerSecond, ScheduledExecutorService _scheduler,
+                    boolean _ownsScheduler, LongSupplier nanoClock) {
+        requests = new Bucket(requestsPerSecond, nanoClock);
+        notifications = new Bucket(notificationsPerSecond, nanoClock);
+        scheduler = _scheduler;
+        ownsScheduler = _ownsScheduler;
+    }
+
+    /**
+     * Reserves one request carrying {@code notificationCount} notifications.
+     *
+     * @return a future completed once the request may be sent, already completed if it may be sent right away
+     */
+    public CompletableFuture<Void> acquireAsync(long notificationCount) {
+        long delayNanos = reserve(notificationCount);
+        if (delayNanos <= 0)
+            return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> retCompletableFuture = new CompletableFuture<>();
+        try {
+            scheduler.schedule(() -> retCompletableFuture.complete(null), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            retCompletableFuture.completeExceptionally(e);
+        }
+        return retCompletableFuture;
+    }
+
+    /**
+     * @return how many nanoseconds the caller has to wait before sending the request it just reserved
+     */
+    long reserve(long notificationCount) {
+        if (notificationCount < 0)
+            throw new IllegalArgumentException();
+        long delayNanos = requests.reserve(1);
+        if (notificationCount > 0)
+            delayNanos = Math.max(delayNanos, notifications.reserve(notificationCount));
+        return delayNanos;
+    }
+
+    public double getRequestsPerSecond() {
+        return requests.permitsPerSecond;
+    }
+
+    public double getNotificationsPerSecond() {
+        return notifications.permitsPerSecond;
+    }
+
+    @Override
+    public void close() {
+        if (ownsScheduler)
+            scheduler.shutdownNow();
+    }
+
+    private static class Bucket {
+        final double permitsPerSecond;
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final LongSupplier nanoClock;
+        // The time at which all permits handed out so far have been paid for.
+        private final AtomicLong theoreticalArrivalTime;
+
+        Bucket(double _permitsPerSecond, LongSupplier _nanoClock) {
+            if (!(_permitsPerSecond > 0))
+                throw new IllegalArgumentException();
+            permitsPerSecond = _permitsPerSecond;
+            intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / _permitsPerSecond));
+            // Allow bursts of up to one second worth of permits.
+            burstNanos = TimeUnit.SECONDS.toNanos(1);
+            nanoClock = _nanoClock;
+            theoreticalArrivalTime = new AtomicLong(_nanoClock.getAsLong());
+        }
+
+        long reserve(long permits) {
+            while (true) {
+                long now = nanoClock.getAsLong();
+                long tat = theoreticalArrivalTime.get();
+                long start = tat - now < 0 ? now : tat;
+                long newTat = start + permits * intervalNanos;
+                if (theoreticalArrivalTime.compareAndSet(tat, newTat))
+                    return newTat - burstNanos - now;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.jav.exposerversdk;
+
+import java.util.List;
+
+/**
+ * Receives the results of a {@link PushReceiptPoller}. Methods may be called from several threads at once.
+ */
+public interface PushReceiptListener {
+    public void onReceipt(ExpoPushReceiept receipt);
+
+    /**
+     * Called for a ticket id whose receipt was still not available after the last attempt.
+     */
+    public default void onUnresolved(String ticketId) {
+    }
+
+    /**
+     * Called when a /push/getReceipts request failed. The ids are polled again unless this was the last attempt.
+     */
+    public default void onError(List<String> ticketIds, Throwable error) {
+    }
+}
@@ -0,0 +1,307 @@
+package io.github.jav.exposerversdk;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls receipts for ticket ids as they are produced. Ids are batched into requests of up to
+ * {@link PushClient#PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT}, each batch is polled once the initial delay has
+ * passed and ids whose receipts are not available yet are polled again with an exponential backoff.
+ */
+public class PushReceiptPoller implements AutoCloseable {
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMinutes(15);
+    public static final Duration DEFAULT_RETRY_DELAY = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofHours(2);
+    public static final Duration DEFAULT_BATCH_WINDOW = Duration.ofSeconds(1);
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2;
+    public static final int DEFAULT_MAX_ATTEMPTS = 6;
+
+    private final PushClient client;
+    private final PushReceiptListener listener;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    private Duration initialDelay = DEFAULT_INITIAL_DELAY;
+    private Duration retryDelay = DEFAULT_RETRY_DELAY;
+    private Duration maxDelay = DEFAULT_MAX_DELAY;
+    private Duration batchWindow = DEFAULT_BATCH_WINDOW;
+    private double backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private final Object lock = new Object();
+    private ReceiptIdBatch currentBatch = null;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private volatile boolean closed = false;
+
+    public PushReceiptPoller(PushClient _client, PushReceiptListener _listener) {
+        this(_client, Executors.newSingleThreadScheduledExecutor(
+                new DefaultPushServerResolver.DaemonThreadFactory("expo-push-receipt-poller")), true, _listener);
+    }
+
+    /**
+     * @param _scheduler runs the polls, it is not shut down by {@link #close()}
+     */
+    public PushReceiptPoller(PushClient _client, ScheduledExecutorService _scheduler, PushReceiptListener _listener) {
+        this(_client, _scheduler, false, _listener);
+    }
+
+    private PushReceiptPoller(PushClient _client, ScheduledExecutorService _scheduler, boolean _ownsScheduler,
+                              PushReceiptListener _listener) {
+        client = _client;
+        scheduler = _scheduler;
+        ownsScheduler = _ownsScheduler;
+        listener = _listener;
+    }
+
+    /**
+     * Tickets without an id, i.e. tickets with an error status, are ignored.
+     */
+    public void add(ExpoPushTicket ticket) {
+        if (ticket.id != null)
+            add(ticket.id);
+    }
+
+    public void add(String ticketId) {
+        _add(ticketId, null);
+    }
+
+    public void add(ExpoPushId ticketId) {
+        _add(null, ticketId);
+    }
+
+    private void _add(String ticketId, ExpoPushId packedTicketId) {
+        ReceiptIdBatch fullBatch = null;
+        boolean startedBatch = false;
+        synchronized (lock) {
+            if (closed)
+                throw new IllegalStateException("Poller is closed");
+            if (currentBatch == null) {
+                currentBatch = new ReceiptIdBatch(0);
+                startedBatch = true;
+            }
+            if (packedTicketId != null)
+                currentBatch.add(packedTicketId);
+            else
+                currentBatch.add(ticketId);
+            if (currentBatch.size() >= PushClient.PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT) {
+                fullBatch = currentBatch;
+                currentBatch = null;
+            }
+            pendingCount.incrementAndGet();
+        }
+
+        if (fullBatch != null) {
+            _schedule(fullBatch, initialDelay);
+        } else if (startedBatch) {
+            try {
+                // Don't let a partial batch wait for more ids forever.
+                scheduler.schedule(this::flush, batchWindow.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Closed since the id was added, close() has dropped it.
+            }
+        }
+    }
+
+    /**
+     * Schedules the ids added so far without waiting for the batch to fill up.
+     */
+    public void flush() {
+        ReceiptIdBatch batch;
+        synchronized (lock) {
+            batch = currentBatch;
+            currentBatch = null;
+        }
+        if (batch != null)
+            _schedule(batch, initialDelay);
+    }
+
+    /**
+     * @return the number of ticket ids whose receipts have not been delivered yet
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    private void _schedule(ReceiptIdBatch batch, Duration delay) {
+        try {
+            scheduler.schedule(() -> _poll(batch), delay.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            _resolved(batch.size());
+        }
+    }
+
+    private void _poll(ReceiptIdBatch batch) {
+        if (closed) {
+            _resolved(batch.size());
+            return;
+        }
+        // Ids that pack are sent without building a String for each of them.
+        ExpoPushIdList packedIds = batch.toPackedIds();
+        CompletableFuture<List<ExpoPushReceiept>> receipts;
+        try {
+            receipts = packedIds != null
+                    ? client.getPushNotificationReceiptsAsync(packedIds)
+                    : client.getPushNotificationReceiptsAsync(batch.toIdList());
+        } catch (RuntimeException e) {
+            _onError(batch, e);
+            return;
+        }
+        if (receipts == null) {
+            _onError(batch, new IllegalStateException("Could not request receipts"));
+            return;
+        }
+        receipts.whenComplete((result, e) -> {
+            if (e != null || result == null) {
+                _onError(batch, e != null ? e : new IllegalStateException("Could not parse receipts"));
+                return;
+            }
+            Set<String> resolvedIds = new HashSet<>();
+            List<ExpoPushReceiept> delivered = new ArrayList<>();
+            for (ExpoPushReceiept receipt : result) {
+                if (resolvedIds.add(receipt.id))
+                    delivered.add(receipt);
+            }
+            ReceiptIdBatch remaining = batch.without(resolvedIds);
+            // Counted by what left the batch, an id that was added twice is resolved by a single receipt.
+            _resolved(batch.size() - remaining.size());
+            for (ExpoPushReceiept receipt : delivered) {
+                try {
+                    listener.onReceipt(receipt);
+                } catch (RuntimeException listenerError) {
+                    // A failing listener must not cost the rest of the batch its retries.
+                    listenerError.printStackTrace();
+                }
+            }
+            _retry(remaining);
+        });
+    }
+
+    private void _onError(ReceiptIdBatch batch, Throwable e) {
+        try {
+            listener.onError(batch.toIdList(), e);
+        } catch (RuntimeException listenerError) {
+            listenerError.printStackTrace();
+        }
+        _retry(batch.without(Collections.<String>emptySet()));
+    }
+
+    private void _retry(ReceiptIdBatch remaining) {
+        if (remaining.isEmpty())
+            return;
+        if (closed) {
+            _resolved(remaining.size());
+            return;
+        }
+        if (remaining.attempt >= maxAttempts) {
+            _resolved(remaining.size());
+            for (String id : remaining.toIdList()) {
+                try {
+                    listener.onUnresolved(id);
+                } catch (RuntimeException listenerError) {
+                    listenerError.printStackTrace();
+                }
+            }
+            return;
+        }
+        _schedule(remaining, _retryDelay(remaining.attempt));
+    }
+
+    /**
+     * Takes ids off the pending count. close() drops whatever is pending, so polls that are still in flight
+     * must not take the count below zero.
+     */
+    private void _resolved(int count) {
+        pendingCount.accumulateAndGet(count, (pending, resolved) -> Math.max(0, pending - resolved));
+    }
+
+    private Duration _retryDelay(int attempt) {
+        double nanos = retryDelay.toNanos() * Math.pow(backoffMultiplier, attempt - 1);
+        return nanos >= maxDelay.toNanos() ? maxDelay : Duration.ofNanos((long) nanos);
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    /**
+     * @param _initialDelay how long after a batch is complete its receipts are first requested
+     */
+    public void setInitialDelay(Duration _initialDelay) {
+        initialDelay = _initialDelay;
+    }
+
+    public Duration getRetryDelay() {
+        return retryDelay;
+    }
+
+    /**
+     * @param _retryDelay the delay before the second attempt, later attempts back off from there
+     */
+    public void setRetryDelay(Duration _retryDelay) {
+        retryDelay = _retryDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(Duration _maxDelay) {
+        maxDelay = _maxDelay;
+    }
+
+    public Duration getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * @param _batchWindow how long a batch that is not full waits for more ids
+     */
+    public void setBatchWindow(Duration _batchWindow) {
+        batchWindow = _batchWindow;
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    public void setBackoffMultiplier(double _backoffMultiplier) {
+        if (_backoffMultiplier < 1)
+            throw new IllegalArgumentException();
+        backoffMultiplier = _backoffMultiplier;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int _maxAttempts) {
+        if (_maxAttempts <= 0)
+            throw new IllegalArgumentException();
+        maxAttempts = _maxAttempts;
+    }
+
+    /**
+     * Stops polling. Ids that are still pending are dropped, polls already scheduled on a shared scheduler
+     * do nothing when they run. Ids can't be added afterwards.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            currentBatch = null;
+            pendingCount.set(0);
+        }
+        if (ownsScheduler)
+            scheduler.shutdownNow();
+    }
+}
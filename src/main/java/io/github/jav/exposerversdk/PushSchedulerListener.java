@@ -0,0 +1,32 @@
+package io.github.jav.exposerversdk;
+
+import java.util.List;
+
+/**
+ * Receives the outcome of messages submitted to a {@link PushNotificationScheduler}. Methods may be called from
+ * several threads at once.
+ */
+public interface PushSchedulerListener {
+    public void onResult(ExpoPushSendResult result);
+
+    /**
+     * Called for a message whose {@code expiration} or {@code ttl} passed while it was queued. It was not sent.
+     */
+    public default void onExpired(ExpoPushMessage message) {
+    }
+
+    /**
+     * Called when sending a chunk failed. {@code unsent} holds the messages of the failed chunks, and those taken
+     * from the queues with them but not sent, each left with the recipients that got no ticket. They are not sent
+     * again unless submitted anew; messages still queued are sent once the scheduler resumes.
+     */
+    public default void onError(List<ExpoPushMessage> unsent, Throwable error) {
+        onError(error);
+    }
+
+    /**
+     * Called by the default {@link #onError(List, Throwable)}.
+     */
+    public default void onError(Throwable error) {
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.jav.exposerversdk;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The push server answered with an HTTP status other than 2xx.
+ */
+public class PushServerException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final Duration retryAfter;
+    private final String responseBody;
+
+    public PushServerException(int _statusCode, Duration _retryAfter, String _responseBody) {
+        super("Push server responded with HTTP status " + _statusCode
+                + (_responseBody == null || _responseBody.isEmpty() ? "" : ": " + _responseBody));
+        statusCode = _statusCode;
+        retryAfter = _retryAfter;
+        responseBody = _responseBody;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return how long the server asked us to wait before retrying, or null if it did not say
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * @return whether the request may succeed if it is sent again later: throttling and server errors
+     */
+    public boolean isRetryable() {
+        return statusCode == 429 || (statusCode >= 500 && statusCode != 501 && statusCode != 505);
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, given either in seconds or as an HTTP date.
+     *
+     * @return the delay, or null if the header is missing or malformed
+     */
+    public static Duration parseRetryAfter(String header) {
+        if (header == null)
+            return null;
+        String value = header.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, try an HTTP date.
+        }
+        try {
+            Duration delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.jav.exposerversdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lets a plain, String based {@link PushServerResolver} be used where a {@link StreamingPushServerResolver}
+ * is expected. Bodies are decoded to and encoded from {@code String}s on the way through. Closing the adapter
+ * closes the wrapped resolver if it can be closed.
+ */
+class PushServerResolverAdapter implements StreamingPushServerResolver, AutoCloseable {
+    private final PushServerResolver pushServerResolver;
+
+    PushServerResolverAdapter(PushServerResolver _pushServerResolver) {
+        pushServerResolver = _pushServerResolver;
+    }
+
+    static StreamingPushServerResolver adapt(PushServerResolver pushServerResolver) {
+        if (pushServerResolver instanceof StreamingPushServerResolver)
+            return (StreamingPushServerResolver) pushServerResolver;
+        return new PushServerResolverAdapter(pushServerResolver);
+    }
+
+    /**
+     * Closes {@code pushServerResolver} if it can be closed. Anything it throws other than an
+     * {@link IOException} or a {@link RuntimeException} is wrapped in an {@link IOException}, so resolvers
+     * wrapping another one don't have to declare {@code throws Exception}.
+     */
+    static void closeIfCloseable(PushServerResolver pushServerResolver) throws IOException {
+        if (!(pushServerResolver instanceof AutoCloseable))
+            return;
+        try {
+            ((AutoCloseable) pushServerResolver).close();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            throw new IOException("Could not close " + pushServerResolver, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(URL url, String json) {
+        return pushServerResolver.postAsync(url, json);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, ByteBuffer body) {
+        return postAsyncStreaming(url, StandardCharsets.UTF_8.decode(body).toString());
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, String json) {
+        CompletableFuture<String> response = pushServerResolver.postAsync(url, json);
+        if (response == null)
+            return null;
+        return CompletableFutures.propagateCancellation(
+                response.thenApply(body -> body == null ? null : new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))),
+                response);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeIfCloseable(pushServerResolver);
+    }
+}
@@ -0,0 +1,642 @@
+package io.github.jav.exposerversdk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Maps ticket ids to a correlation key chosen by the caller, e.g. the id of the message or user a notification
+ * was sent for, until the receipt for the ticket arrives. See {@link PushClient#setTicketStore(PushTicketStore)}.
+ * <p>
+ * Entries live outside the heap in an open-addressing hash table with linear probing, either in a direct buffer
+ * or in a memory-mapped file that survives restarts. Each entry takes 32 bytes: the ticket id as a 128 bit UUID,
+ * the key and the time it expires. Lookups are a few reads of the table whatever its size.
+ * <p>
+ * Entries expire after a {@link #setTtl(Duration) time to live}, by default a little longer than Expo keeps
+ * receipts. A background task drops expired entries and rebuilds the table once removed entries pile up or
+ * most of it is empty, holding the lock only for short slices of work. The table grows as needed, up to
+ * {@link #MAX_CAPACITY} entries.
+ */
+public class PushTicketStore implements AutoCloseable {
+    public static final long NO_KEY = Long.MIN_VALUE;
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int MAX_CAPACITY = 1 << 25;
+    public static final Duration DEFAULT_TTL = Duration.ofHours(26);
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(10);
+
+    private static final int MAGIC = 0x45585453;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 32;
+    private static final int MIN_CAPACITY = 16;
+    // Values of the expiry field that don't hold an entry.
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    // Slots purged or copied per hold of a lock by the background task.
+    private static final int SLICE_SLOTS = 4096;
+
+    private final Path file;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private ByteBuffer table;
+    private int capacity;
+    // Slots holding an entry, expired or not, and slots whose entry was removed.
+    private int occupied;
+    private int removed;
+    private boolean closed = false;
+    // Puts and removes made while the background task builds a new table, four longs each, or null.
+    private long[] journal;
+    private int journalSize;
+    private volatile Duration ttl = DEFAULT_TTL;
+
+    PushTicketStore(Path _file, int _capacity, LongSupplier _clock, Duration _compactionInterval) throws IOException {
+        file = _file;
+        clock = _clock;
+        if (file != null && Files.exists(file) && Files.size(file) > 0) {
+            _openExisting();
+        } else {
+            capacity = _capacityFor(_capacity);
+            channel = file == null ? null : FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            table = _allocate(channel, capacity);
+        }
+        if (_compactionInterval == null) {
+            scheduler = null;
+        } else {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    new DefaultPushServerResolver.DaemonThreadFactory("expo-push-ticket-store"));
+            long interval = _compactionInterval.toNanos();
+            scheduler.scheduleWithFixedDelay(this::_compactIfNeeded, interval, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Opens the store in {@code file}, creating it if it does not exist.
+     */
+    public static PushTicketStore open(Path file) throws IOException {
+        return open(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of entries to make room for up front, ignored if the file exists
+     */
+    public static PushTicketStore open(Path file, int capacity) throws IOException {
+        return new PushTicketStore(file, capacity, System::currentTimeMillis, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    /**
+     * Creates a store in a direct buffer, its entries are lost when the JVM stops.
+     */
+    public static PushTicketStore inMemory() {
+        return inMemory(DEFAULT_CAPACITY);
+    }
+
+    public static PushTicketStore inMemory(int capacity) {
+        try {
+            return new PushTicketStore(null, capacity, System::currentTimeMillis, DEFAULT_COMPACTION_INTERVAL);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void put(String ticketId, long correlationKey) {
+        put(ticketId, correlationKey, ttl);
+    }
+
+    /**
+     * @param correlationKey any value but {@link #NO_KEY}
+     * @param _ttl           how long to keep the entry
+     * @throws UncheckedIOException if the table had to grow and its file could not be rewritten
+     */
+    public void put(String ticketId, long correlationKey, Duration _ttl) {
+        if (correlationKey == NO_KEY || _ttl.isNegative() || _ttl.isZero())
+            throw new IllegalArgumentException();
+        UUID id = _uuid(ticketId);
+        long now = clock.getAsLong();
+        long expiresAt = now + _ttl.toMillis();
+        lock.writeLock().lock();
+        try {
+            _checkOpen();
+            if ((long) occupied + removed + 1 > capacity * 3L / 4) {
+                try {
+                    _rebuild(_capacityFor(occupied + 1), now);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if ((long) occupied + 1 > capacity * 3L / 4)
+                    throw new IllegalStateException("Ticket store is full");
+            }
+            long previous = _put(table, capacity, id.getMostSignificantBits(), id.getLeastSignificantBits(),
+                    correlationKey, expiresAt);
+            _journal(id.getMostSignificantBits(), id.getLeastSignificantBits(), correlationKey, expiresAt);
+            if (previous == EMPTY || previous == REMOVED)
+                occupied++;
+            if (previous == REMOVED)
+                removed--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the key stored for {@code ticketId}, or {@link #NO_KEY} if there is none or it has expired
+     */
+    public long get(String ticketId) {
+        UUID id = _uuid(ticketId);
+        long now = clock.getAsLong();
+        lock.readLock().lock();
+        try {
+            _checkOpen();
+            int slot = _find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot < 0)
+                return NO_KEY;
+            int offset = _offset(slot);
+            return table.getLong(offset + 24) > now ? table.getLong(offset + 16) : NO_KEY;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the entry for {@code ticketId}, e.g. once its receipt has been handled.
+     *
+     * @return the key that was stored, or {@link #NO_KEY} if there was none or it had expired
+     */
+    public long remove(String ticketId) {
+        UUID id = _uuid(ticketId);
+        long now = clock.getAsLong();
+        lock.writeLock().lock();
+        try {
+            _checkOpen();
+            int slot = _find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot < 0)
+                return NO_KEY;
+            _journal(id.getMostSignificantBits(), id.getLeastSignificantBits(), NO_KEY, REMOVED);
+            int offset = _offset(slot);
+            long key = table.getLong(offset + 16);
+            long expiresAt = table.getLong(offset + 24);
+            table.putLong(offset + 24, REMOVED);
+            occupied--;
+            removed++;
+            return expiresAt > now ? key : NO_KEY;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries, including expired ones that have not been dropped yet
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return occupied;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries the table has room for before it is rebuilt
+     */
+    public int getCapacity() {
+        lock.readLock().lock();
+        try {
+            return capacity;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops expired entries and rebuilds the table at the smallest capacity that fits the remaining ones.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            _checkOpen();
+            long now = clock.getAsLong();
+            _purgeExpired(now);
+            _rebuild(_capacityFor(occupied), now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the entries of a file-backed store to disk.
+     */
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            _checkOpen();
+            if (table instanceof MappedByteBuffer)
+                ((MappedByteBuffer) table).force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops expired entries a slice at a time, then rebuilds the table if needed without blocking puts and
+     * removes while it is copied and written.
+     */
+    void _compactIfNeeded() {
+        try {
+            long now = clock.getAsLong();
+            ByteBuffer purged = _purgeExpiredInSlices(now);
+            int fitting;
+            lock.readLock().lock();
+            try {
+                if (closed || table != purged)
+                    return;
+                fitting = _capacityFor(occupied);
+                if (!(removed > capacity / 4 || fitting <= capacity / 4))
+                    return;
+            } finally {
+                lock.readLock().unlock();
+            }
+            _rebuildConcurrently(fitting, now);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the table that was purged, it is only purged in part if it was replaced meanwhile
+     */
+    private ByteBuffer _purgeExpiredInSlices(long now) {
+        ByteBuffer purged;
+        lock.readLock().lock();
+        try {
+            purged = table;
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (int from = 0; ; from += SLICE_SLOTS) {
+            lock.writeLock().lock();
+            try {
+                if (closed || table != purged || from >= capacity)
+                    return purged;
+                _purgeExpired(now, from, Math.min(capacity, from + SLICE_SLOTS));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void _purgeExpired(long now) {
+        _purgeExpired(now, 0, capacity);
+    }
+
+    private void _purgeExpired(long now, int fromSlot, int toSlot) {
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            int offset = _offset(slot);
+            long expiresAt = table.getLong(offset + 24);
+            if (expiresAt != EMPTY && expiresAt != REMOVED && expiresAt <= now) {
+                table.putLong(offset + 24, REMOVED);
+                occupied--;
+                removed++;
+            }
+        }
+    }
+
+    /**
+     * Like {@link #_rebuild(int, long)}, but copies the old table a slice at a time under the read lock and
+     * writes the new one with no lock held. Puts and removes made meanwhile are journaled and replayed on the
+     * new table when it is swapped in under the write lock. Gives up if the table was replaced meanwhile.
+     */
+    private void _rebuildConcurrently(int newCapacity, long now) throws IOException {
+        ByteBuffer oldTable;
+        int oldCapacity;
+        lock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            oldTable = table;
+            oldCapacity = capacity;
+            journal = new long[64];
+            journalSize = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Not the file of _rebuild, which a put may run meanwhile.
+        Path tmp = _compactionFile(".rebuild");
+        FileChannel newChannel = null;
+        boolean swapped = false;
+        try {
+            newChannel = _openCompactionChannel(tmp);
+            ByteBuffer newTable = _allocate(newChannel, newCapacity);
+            int live = 0;
+            for (int from = 0; from < oldCapacity; from += SLICE_SLOTS) {
+                lock.readLock().lock();
+                try {
+                    if (closed || table != oldTable)
+                        return;
+                    // Puts made since the capacity was chosen may not fit.
+                    int copied = _copyLive(oldTable, from, Math.min(oldCapacity, from + SLICE_SLOTS), newTable,
+                            newCapacity, now, (int) (newCapacity * 3L / 4) - live);
+                    if (copied < 0)
+                        return;
+                    live += copied;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+            if (newChannel != null)
+                ((MappedByteBuffer) newTable).force();
+
+            lock.writeLock().lock();
+            try {
+                // Every journaled put may take a slot of its own.
+                if (closed || table != oldTable || (long) live + journalSize / 4 > newCapacity * 3L / 4)
+                    return;
+                int newRemoved = 0;
+                for (int i = 0; i < journalSize; i += 4) {
+                    long high = journal[i], low = journal[i + 1];
+                    if (journal[i + 3] == REMOVED) {
+                        int slot = _find(newTable, newCapacity, high, low);
+                        if (slot >= 0) {
+                            newTable.putLong(_offset(slot) + 24, REMOVED);
+                            live--;
+                            newRemoved++;
+                        }
+                        continue;
+                    }
+                    long previous = _put(newTable, newCapacity, high, low, journal[i + 2], journal[i + 3]);
+                    if (previous == EMPTY || previous == REMOVED)
+                        live++;
+                    if (previous == REMOVED)
+                        newRemoved--;
+                }
+                _swap(tmp, newChannel, newTable, newCapacity, live, newRemoved);
+                swapped = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!swapped && newChannel != null) {
+                newChannel.close();
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    private void _journal(long high, long low, long key, long expiresAt) {
+        if (journal == null)
+            return;
+        if (journalSize + 4 > journal.length)
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        journal[journalSize++] = high;
+        journal[journalSize++] = low;
+        journal[journalSize++] = key;
+        journal[journalSize++] = expiresAt;
+    }
+
+    /**
+     * Copies the live entries into a new table. A file-backed table is built in a sibling file that then
+     * replaces the old one, so a crash leaves either the old or the new table behind.
+     */
+    private void _rebuild(int newCapacity, long now) throws IOException {
+        Path tmp = _compactionFile(".compact");
+        FileChannel newChannel = _openCompactionChannel(tmp);
+        try {
+            ByteBuffer newTable = _allocate(newChannel, newCapacity);
+            int live = _copyLive(table, 0, capacity, newTable, newCapacity, now, Integer.MAX_VALUE);
+            if (newChannel != null)
+                ((MappedByteBuffer) newTable).force();
+            _swap(tmp, newChannel, newTable, newCapacity, live, 0);
+        } catch (IOException | RuntimeException e) {
+            if (newChannel != null)
+                newChannel.close();
+            throw e;
+        }
+    }
+
+    private Path _compactionFile(String suffix) {
+        return file == null ? null : file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    private static FileChannel _openCompactionChannel(Path tmp) throws IOException {
+        return tmp == null ? null : FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return the number of live entries in slots {@code fromSlot} to {@code toSlot} of {@code from}, copied
+     * into {@code to}, or -1 if there are more than {@code limit}
+     */
+    private static int _copyLive(ByteBuffer from, int fromSlot, int toSlot, ByteBuffer to, int toCapacity,
+                                 long now, int limit) {
+        int live = 0;
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            int offset = _offset(slot);
+            long expiresAt = from.getLong(offset + 24);
+            if (expiresAt == EMPTY || expiresAt == REMOVED || expiresAt <= now)
+                continue;
+            if (live == limit)
+                return -1;
+            _put(to, toCapacity, from.getLong(offset), from.getLong(offset + 8), from.getLong(offset + 16),
+                    expiresAt);
+            live++;
+        }
+        return live;
+    }
+
+    private void _swap(Path tmp, FileChannel newChannel, ByteBuffer newTable, int newCapacity, int live,
+                       int newRemoved) throws IOException {
+        if (newChannel != null) {
+            // The mapping stays valid across the move, it follows the file rather than its name.
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+        }
+        channel = newChannel;
+        table = newTable;
+        capacity = newCapacity;
+        occupied = live;
+        removed = newRemoved;
+    }
+
+    /**
+     * @return the previous expiry field of the slot taken, {@link #EMPTY} or {@link #REMOVED} unless an entry
+     * for the same id was replaced
+     */
+    private static long _put(ByteBuffer table, int capacity, long high, long low, long key, long expiresAt) {
+        int mask = capacity - 1;
+        int reusable = -1;
+        int slot = _hash(high, low) & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int offset = _offset(slot);
+            long slotExpiresAt = table.getLong(offset + 24);
+            if (slotExpiresAt == EMPTY)
+                break;
+            if (slotExpiresAt == REMOVED) {
+                if (reusable < 0)
+                    reusable = slot;
+            } else if (table.getLong(offset) == high && table.getLong(offset + 8) == low) {
+                reusable = slot;
+                break;
+            }
+        }
+        int offset = _offset(reusable >= 0 ? reusable : slot);
+        long previous = table.getLong(offset + 24);
+        table.putLong(offset, high);
+        table.putLong(offset + 8, low);
+        table.putLong(offset + 16, key);
+        // Written last, the slot only counts as taken once the rest of it is there.
+        table.putLong(offset + 24, expiresAt);
+        return previous;
+    }
+
+    private int _find(long high, long low) {
+        return _find(table, capacity, high, low);
+    }
+
+    private static int _find(ByteBuffer table, int capacity, long high, long low) {
+        int mask = capacity - 1;
+        for (int slot = _hash(high, low) & mask; ; slot = (slot + 1) & mask) {
+            int offset = _offset(slot);
+            long expiresAt = table.getLong(offset + 24);
+            if (expiresAt == EMPTY)
+                return -1;
+            if (expiresAt != REMOVED && table.getLong(offset) == high && table.getLong(offset + 8) == low)
+                return slot;
+        }
+    }
+
+    private static int _offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static int _hash(long high, long low) {
+        // The finalizer of MurmurHash3, ids are mostly random already but need not be.
+        long h = high ^ Long.rotateLeft(low, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int _capacityFor(int entries) {
+        // Keep the table at most half full after a rebuild.
+        long needed = Math.max(MIN_CAPACITY, 2L * entries);
+        long capacity = Long.highestOneBit(needed);
+        return (int) Math.min(capacity < needed ? capacity << 1 : capacity, MAX_CAPACITY);
+    }
+
+    private void _openExisting() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("Not a ticket store: " + file);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                throw new IOException("Not a ticket store: " + file);
+            capacity = header.getInt(8);
+            if (Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY
+                    || channel.size() < _offset(0) + (long) capacity * SLOT_BYTES)
+                throw new IOException("Corrupt ticket store: " + file);
+            table = channel.map(FileChannel.MapMode.READ_WRITE, 0, _offset(0) + (long) capacity * SLOT_BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        for (int slot = 0; slot < capacity; slot++) {
+            long expiresAt = table.getLong(_offset(slot) + 24);
+            if (expiresAt == REMOVED)
+                removed++;
+            else if (expiresAt != EMPTY)
+                occupied++;
+        }
+    }
+
+    private static ByteBuffer _allocate(FileChannel channel, int capacity) throws IOException {
+        long size = _offset(0) + (long) capacity * SLOT_BYTES;
+        ByteBuffer table;
+        if (channel == null) {
+            table = ByteBuffer.allocateDirect((int) size);
+        } else {
+            // Mapping past the end grows the file, with zeroes, i.e. empty slots.
+            table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        table.putInt(0, MAGIC);
+        table.putInt(4, VERSION);
+        table.putInt(8, capacity);
+        return table;
+    }
+
+    private static UUID _uuid(String ticketId) {
+        try {
+            return UUID.fromString(ticketId);
+        } catch (IllegalArgumentException e) {
+            // Not an id Expo hands out today, still give it 128 bits.
+            return UUID.nameUUIDFromBytes(ticketId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void _checkOpen() {
+        if (closed)
+            throw new IllegalStateException("Ticket store is closed");
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @param _ttl how long entries added by {@link #put(String, long)} are kept
+     */
+    public void setTtl(Duration _ttl) {
+        if (_ttl == null || _ttl.isNegative() || _ttl.isZero())
+            throw new IllegalArgumentException();
+        ttl = _ttl;
+    }
+
+    /**
+     * Stops compacting and writes a file-backed store to disk.
+     */
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            if (channel != null) {
+                ((MappedByteBuffer) table).force();
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.github.jav.exposerversdk;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers push tokens that Expo reported as no longer registered, so they can be left out of later sends,
+ * see {@link PushClient#setSuppressionCache(PushTokenSuppressionCache)}.
+ * <p>
+ * The cache holds at most {@link #getMaxSize()} tokens, the ones suppressed longest ago are evicted first.
+ * Tokens are suppressed for a {@link #getTtl() time to live} only, in case the device registers again.
+ * <p>
+ * {@link #isSuppressed(String)} is called for every recipient of every send and takes no lock.
+ */
+public class PushTokenSuppressionCache {
+    public static final String DEVICE_NOT_REGISTERED = "DeviceNotRegistered";
+    public static final int DEFAULT_MAX_SIZE = 100_000;
+    public static final Duration DEFAULT_TTL = Duration.ofDays(7);
+    // Expo names the token a ticket or receipt error is about in its details.
+    private static final String TOKEN_DETAIL = "expoPushToken";
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final LongSupplier clock;
+    // Token to the time its suppression expires.
+    private final ConcurrentHashMap<String, Long> suppressed = new ConcurrentHashMap<>();
+    // The same tokens, oldest first. Guards every change to both.
+    private final LinkedHashSet<String> order = new LinkedHashSet<>();
+    private volatile PushTokenSuppressionListener listener = null;
+
+    public PushTokenSuppressionCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    public PushTokenSuppressionCache(int _maxSize, Duration _ttl) {
+        this(_maxSize, _ttl, System::nanoTime);
+    }
+
+    PushTokenSuppressionCache(int _maxSize, Duration _ttl, LongSupplier _clock) {
+        if (_maxSize <= 0 || _ttl.isNegative() || _ttl.isZero())
+            throw new IllegalArgumentException();
+        maxSize = _maxSize;
+        ttl = _ttl;
+        clock = _clock;
+    }
+
+    /**
+     * Suppresses {@code token}, or extends its suppression if it is suppressed already.
+     *
+     * @param error the error Expo reported for the token
+     * @return true if the token was not suppressed before
+     */
+    public boolean suppress(String token, String error) {
+        long expiresAt = clock.getAsLong() + ttl.toNanos();
+        boolean added;
+        synchronized (order) {
+            Long previous = suppressed.put(token, expiresAt);
+            added = previous == null || previous - clock.getAsLong() <= 0;
+            // Removed first so the token moves to the end, it is evicted last.
+            order.remove(token);
+            order.add(token);
+            if (order.size() > maxSize) {
+                Iterator<String> oldest = order.iterator();
+                suppressed.remove(oldest.next());
+                oldest.remove();
+            }
+        }
+        PushTokenSuppressionListener listener = this.listener;
+        if (added && listener != null) {
+            // Called while handling a ticket or receipt, a failing listener must not fail the request.
+            try {
+                listener.onSuppressed(token, error);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        return added;
+    }
+
+    public boolean isSuppressed(String token) {
+        Long expiresAt = suppressed.get(token);
+        if (expiresAt == null)
+            return false;
+        if (expiresAt - clock.getAsLong() > 0)
+            return true;
+        synchronized (order) {
+            // Unless it was suppressed again meanwhile.
+            if (suppressed.remove(token, expiresAt))
+                order.remove(token);
+        }
+        return false;
+    }
+
+    /**
+     * Sends to {@code token} again, e.g. after the device registered it anew.
+     *
+     * @return true if the token was suppressed
+     */
+    public boolean unsuppress(String token) {
+        synchronized (order) {
+            Long expiresAt = suppressed.remove(token);
+            order.remove(token);
+            return expiresAt != null && expiresAt - clock.getAsLong() > 0;
+        }
+    }
+
+    /**
+     * @return the number of tokens held, including expired ones that have not been dropped yet
+     */
+    public int size() {
+        return suppressed.size();
+    }
+
+    /**
+     * Suppresses the recipient of {@code ticket} if the ticket reports it as not registered.
+     *
+     * @param recipient the token the ticket was returned for, or null to only use the one in the ticket
+     */
+    void record(ExpoPushTicket ticket, String recipient) {
+        ExpoPushTicket.Details details = ticket.getDetails();
+        if (details == null || !DEVICE_NOT_REGISTERED.equals(details.getError()))
+            return;
+        Object token = details.getAdditionalProperties().get(TOKEN_DETAIL);
+        if (token instanceof String)
+            suppress((String) token, details.getError());
+        else if (recipient != null)
+            suppress(recipient, details.getError());
+    }
+
+    /**
+     * Suppresses the token named by {@code receipt} if the receipt reports it as not registered.
+     */
+    void record(ExpoPushReceiept receipt) {
+        ExpoPushReceiept.Details details = receipt.getDetails();
+        if (details == null || !DEVICE_NOT_REGISTERED.equals(details.getError()))
+            return;
+        Object token = details.getAdditionalProperties().get(TOKEN_DETAIL);
+        if (token instanceof String)
+            suppress((String) token, details.getError());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public PushTokenSuppressionListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param _listener is told about every token that gets suppressed, or null
+     */
+    public void setListener(PushTokenSuppressionListener _listener) {
+        listener = _listener;
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.jav.exposerversdk;
+
+/**
+ * Receives the tokens added to a {@link PushTokenSuppressionCache}, e.g. to remove them from your own records.
+ * Called on the thread that parsed the ticket or receipt, possibly from several threads at once.
+ */
+public interface PushTokenSuppressionListener {
+    public void onSuppressed(String token, String error);
+}
@@ -0,0 +1,71 @@
+package io.github.jav.exposerversdk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Up to one request worth of receipt ids waiting to be polled. Ids in canonical lower case UUID form, which
+ * is what Expo hands out, are packed into an {@link ExpoPushIdList}; anything else is kept as a {@code String}.
+ */
+class ReceiptIdBatch {
+    final int attempt;
+    private final ExpoPushIdList packedIds = new ExpoPushIdList();
+    private List<String> otherIds = null;
+
+    ReceiptIdBatch(int _attempt) {
+        attempt = _attempt;
+    }
+
+    void add(String id) {
+        if (packedIds.tryAdd(id))
+            return;
+        if (otherIds == null)
+            otherIds = new ArrayList<>();
+        otherIds.add(id);
+    }
+
+    void add(ExpoPushId id) {
+        packedIds.add(id);
+    }
+
+    int size() {
+        return packedIds.size() + (otherIds == null ? 0 : otherIds.size());
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the ids of this batch, or null if some of them could not be packed
+     */
+    ExpoPushIdList toPackedIds() {
+        return otherIds == null ? packedIds : null;
+    }
+
+    List<String> toIdList() {
+        List<String> ids = packedIds.toStringList();
+        if (otherIds != null)
+            ids.addAll(otherIds);
+        return ids;
+    }
+
+    /**
+     * @return a batch for the next attempt holding the ids of this batch that are not in {@code resolvedIds}
+     */
+    ReceiptIdBatch without(Collection<String> resolvedIds) {
+        ReceiptIdBatch remaining = new ReceiptIdBatch(attempt + 1);
+        for (int i = 0; i < packedIds.size(); i++) {
+            if (!resolvedIds.contains(packedIds.getString(i)))
+                remaining.packedIds.add(packedIds.getMostSigBits(i), packedIds.getLeastSigBits(i));
+        }
+        if (otherIds != null) {
+            for (String id : otherIds) {
+                if (!resolvedIds.contains(id))
+                    remaining.add(id);
+            }
+        }
+        return remaining;
+    }
+}
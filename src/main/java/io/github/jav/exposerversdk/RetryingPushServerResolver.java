@@ -0,0 +1,214 @@
+package io.github.jav.exposerversdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests again when the push server is throttling ({@code 429}) or temporarily failing ({@code 5xx}),
+ * and when no connection could be made. Every request has its own budget of attempts, so for chunked sends only
+ * the chunks that failed are sent again.
+ * <p>
+ * Retries back off exponentially with full jitter: the n-th retry waits a random time between zero and
+ * {@code initialBackoff * backoffMultiplier^(n-1)}, capped at {@code maxBackoff}, so clients that were throttled
+ * together don't come back together. A {@code Retry-After} given by the server is waited for at least; a request
+ * asked to wait longer than {@code maxBackoff} fails instead of being held.
+ */
+public class RetryingPushServerResolver implements StreamingPushServerResolver, AutoCloseable {
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(500);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2;
+
+    private final StreamingPushServerResolver pushServerResolver;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private volatile Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+    private volatile double backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+    private volatile PushClientMetrics metrics = PushClientMetrics.NOOP;
+
+    public RetryingPushServerResolver(PushServerResolver _pushServerResolver) {
+        this(_pushServerResolver, Executors.newSingleThreadScheduledExecutor(
+                new DefaultPushServerResolver.DaemonThreadFactory("expo-push-retry")), true);
+    }
+
+    /**
+     * @param _scheduler waits out the backoff between attempts, it is not shut down by {@link #close()}
+     */
+    public RetryingPushServerResolver(PushServerResolver _pushServerResolver, ScheduledExecutorService _scheduler) {
+        this(_pushServerResolver, _scheduler, false);
+    }
+
+    private RetryingPushServerResolver(PushServerResolver _pushServerResolver, ScheduledExecutorService _scheduler,
+                                       boolean _ownsScheduler) {
+        pushServerResolver = PushServerResolverAdapter.adapt(_pushServerResolver);
+        scheduler = _scheduler;
+        ownsScheduler = _ownsScheduler;
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(URL url, String json) {
+        return _withRetries(url, () -> pushServerResolver.postAsync(url, json));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, ByteBuffer body) {
+        // Every attempt reads the body from the start.
+        return _withRetries(url, () -> pushServerResolver.postAsyncStreaming(url, body.duplicate()));
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, String json) {
+        return _withRetries(url, () -> pushServerResolver.postAsyncStreaming(url, json));
+    }
+
+    private <T> CompletableFuture<T> _withRetries(URL url, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> retCompletableFuture = new CompletableFuture<>();
+        _attempt(url, request, 1, retCompletableFuture);
+        return retCompletableFuture;
+    }
+
+    private <T> void _attempt(URL url, Supplier<CompletableFuture<T>> request, int attempt, CompletableFuture<T> result) {
+        // Cancelled while waiting for the retry.
+        if (result.isDone())
+            return;
+        CompletableFuture<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (response == null) {
+            result.complete(null);
+            return;
+        }
+        CompletableFutures.propagateCancellation(result, response);
+        response.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Duration delay = attempt < maxAttempts ? _retryDelay(attempt, cause) : null;
+            // A cancelled request is not sent again.
+            if (delay == null || result.isDone()) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            metrics.retryScheduled(PushClientMetrics.endpoint(url), attempt, delay.toNanos());
+            try {
+                scheduler.schedule(() -> _attempt(url, request, attempt + 1, result), delay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException rejected) {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * @return how long to wait before sending a request again after its {@code attempt}-th attempt failed with
+     * {@code e}, or null if it should not be sent again
+     */
+    Duration _retryDelay(int attempt, Throwable e) {
+        Duration retryAfter = null;
+        if (e instanceof PushServerException) {
+            PushServerException serverException = (PushServerException) e;
+            if (!serverException.isRetryable())
+                return null;
+            retryAfter = serverException.getRetryAfter();
+        } else if (!(e instanceof ConnectException)) {
+            // The request may have reached the server, sending it again could deliver notifications twice.
+            return null;
+        }
+
+        long capNanos = maxBackoff.toNanos();
+        if (retryAfter != null && retryAfter.toNanos() > capNanos)
+            return null;
+        double backoffNanos = initialBackoff.toNanos() * Math.pow(backoffMultiplier, attempt - 1);
+        long jitteredNanos = (long) (ThreadLocalRandom.current().nextDouble() * Math.min(backoffNanos, capNanos));
+        if (retryAfter != null && retryAfter.toNanos() > jitteredNanos)
+            return retryAfter;
+        return Duration.ofNanos(jitteredNanos);
+    }
+
+    public StreamingPushServerResolver getPushServerResolver() {
+        return pushServerResolver;
+    }
+
+    public PushClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param _metrics is told about every retry
+     */
+    public void setMetrics(PushClientMetrics _metrics) {
+        metrics = _metrics == null ? PushClientMetrics.NOOP : _metrics;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param _maxAttempts how many times a request is sent at most, including the first attempt
+     */
+    public void setMaxAttempts(int _maxAttempts) {
+        if (_maxAttempts <= 0)
+            throw new IllegalArgumentException();
+        maxAttempts = _maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration _initialBackoff) {
+        initialBackoff = _initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @param _maxBackoff the longest wait between two attempts, also the longest {@code Retry-After} that is honoured
+     */
+    public void setMaxBackoff(Duration _maxBackoff) {
+        maxBackoff = _maxBackoff;
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    public void setBackoffMultiplier(double _backoffMultiplier) {
+        if (_backoffMultiplier < 1)
+            throw new IllegalArgumentException();
+        backoffMultiplier = _backoffMultiplier;
+    }
+
+    /**
+     * Stops retrying and closes the wrapped resolver if it can be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsScheduler)
+            scheduler.shutdownNow();
+        PushServerResolverAdapter.closeIfCloseable(pushServerResolver);
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.jav.exposerversdk;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link PushServerResolver} that works on bytes. {@link PushClient} serializes request bodies straight into
+ * a byte buffer and parses tickets and receipts straight from the response bytes, without building an
+ * intermediate {@code String} on either side.
+ */
+public interface StreamingPushServerResolver extends PushServerResolver {
+    /**
+     * @param body the UTF-8 encoded JSON request body, from its position to its limit. The buffer is only
+     *             valid until the returned future completes and must not be modified.
+     * @return a future completed with the UTF-8 encoded response body. The stream is fully buffered,
+     * it may be read on any thread and does not need to be closed.
+     */
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, ByteBuffer body);
+
+    public default CompletableFuture<InputStream> postAsyncStreaming(URL url, String json) {
+        return postAsyncStreaming(url, ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
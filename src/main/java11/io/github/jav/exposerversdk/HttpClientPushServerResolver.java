@@ -0,0 +1,182 @@
+package io.github.jav.exposerversdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Posts requests with a non-blocking {@link HttpClient}. Requests are multiplexed over a small pool of
+ * persistent HTTP/2 connections and no thread is blocked while a request is in flight.
+ * Requires Java 11 or later.
+ * <p>
+ * Requests fail with an {@link java.net.http.HttpTimeoutException} when no response arrives within the
+ * {@link #setRequestTimeout(Duration) request timeout}. Cancelling a returned future cancels the exchange.
+ * <p>
+ * Compressed responses are decoded transparently. Request bodies are sent as they are unless a
+ * {@link #setCompressionThreshold(int) compression threshold} is set.
+ */
+public class HttpClientPushServerResolver implements StreamingPushServerResolver {
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    public static final int NO_COMPRESSION = -1;
+
+    private final HttpClient httpClient;
+    private volatile int compressionThreshold = NO_COMPRESSION;
+    private volatile Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+    public HttpClientPushServerResolver() {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(DEFAULT_CONNECT_TIMEOUT)
+                .build());
+    }
+
+    /**
+     * @param _httpClient a preconfigured client, e.g. with a custom executor, proxy or SSL context
+     */
+    public HttpClientPushServerResolver(HttpClient _httpClient) {
+        httpClient = _httpClient;
+    }
+
+    public CompletableFuture<String> postAsync(URL url, String json) {
+        CompletableFuture<HttpResponse<byte[]>> response = _post(url, ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        return CompletableFutures.propagateCancellation(response.thenApply(r -> {
+            try {
+                return _bodyString(r);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }), response);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> postAsyncStreaming(URL url, ByteBuffer body) {
+        CompletableFuture<HttpResponse<byte[]>> response = _post(url, body);
+        return CompletableFutures.propagateCancellation(response.thenApply(r -> {
+            try {
+                return _bodyStream(r);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }), response);
+    }
+
+    /**
+     * @return a future completed with a 2xx response, or exceptionally with a {@link PushServerException}
+     */
+    private CompletableFuture<HttpResponse<byte[]>> _post(URL url, ByteBuffer body) {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(url.toURI())
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .header("Accept-Encoding", ContentEncoding.ACCEPT_ENCODING);
+            Duration timeout = requestTimeout;
+            if (!timeout.isZero())
+                builder.timeout(timeout);
+            int threshold = compressionThreshold;
+            if (threshold != NO_COMPRESSION && body.remaining() >= threshold) {
+                builder.header("Content-Encoding", ContentEncoding.GZIP)
+                        .POST(_bodyPublisher(_gzip(body).toByteBuffer()));
+            } else {
+                builder.POST(_bodyPublisher(body));
+            }
+            request = builder.build();
+        } catch (URISyntaxException | IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        return CompletableFutures.propagateCancellation(exchange
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 == 2)
+                        return response;
+                    String errorBody;
+                    try {
+                        errorBody = _bodyString(response);
+                    } catch (IOException e) {
+                        errorBody = null;
+                    }
+                    throw new CompletionException(new PushServerException(response.statusCode(),
+                            PushServerException.parseRetryAfter(response.headers().firstValue("Retry-After").orElse(null)),
+                            errorBody));
+                }), exchange);
+    }
+
+    /**
+     * Reads the body in place, an uncompressed body is not copied.
+     */
+    private static InputStream _bodyStream(HttpResponse<byte[]> response) throws IOException {
+        return ContentEncoding.decode(response.headers().firstValue("Content-Encoding").orElse(null),
+                new ByteArrayInputStream(response.body()));
+    }
+
+    private static String _bodyString(HttpResponse<byte[]> response) throws IOException {
+        if (response.headers().firstValue("Content-Encoding").isEmpty())
+            return new String(response.body(), StandardCharsets.UTF_8);
+        try (InputStream in = _bodyStream(response)) {
+            return ByteArrayBuffer.readFully(in).toUtf8String();
+        }
+    }
+
+    private static HttpRequest.BodyPublisher _bodyPublisher(ByteBuffer body) {
+        if (body.hasArray())
+            return HttpRequest.BodyPublishers.ofByteArray(body.array(), body.arrayOffset() + body.position(), body.remaining());
+        byte[] bytes = new byte[body.remaining()];
+        body.duplicate().get(bytes);
+        return HttpRequest.BodyPublishers.ofByteArray(bytes);
+    }
+
+    private static ByteArrayBuffer _gzip(ByteBuffer body) throws IOException {
+        // Compressed JSON is a fraction of the original, start small.
+        ByteArrayBuffer compressed = new ByteArrayBuffer(Math.max(64, body.remaining() / 4));
+        try (OutputStream os = new GZIPOutputStream(compressed)) {
+            ByteArrayBuffer.write(body, os);
+        }
+        return compressed;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Compresses request bodies of at least {@code _compressionThreshold} bytes with gzip.
+     *
+     * @param _compressionThreshold the size in bytes, or {@link #NO_COMPRESSION} to never compress
+     */
+    public void setCompressionThreshold(int _compressionThreshold) {
+        if (_compressionThreshold < 0 && _compressionThreshold != NO_COMPRESSION)
+            throw new IllegalArgumentException();
+        compressionThreshold = _compressionThreshold;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * @param _requestTimeout how long to wait for a response, {@link Duration#ZERO} to wait forever
+     */
+    public void setRequestTimeout(Duration _requestTimeout) {
+        if (_requestTimeout == null || _requestTimeout.isNegative())
+            throw new IllegalArgumentException();
+        requestTimeout = _requestTimeout;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.jav.exposerversdk;
+
+class DefaultPushServerResolverContractTest extends PushClientContractTest {
+    @Override
+    protected PushServerResolver _resolver() {
+        return new DefaultPushServerResolver();
+    }
+}
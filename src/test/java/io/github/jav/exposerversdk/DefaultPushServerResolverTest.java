@@ -0,0 +1,220 @@
+package io.github.jav.exposerversdk;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultPushServerResolverTest {
+    private HttpServer server;
+    private URL url;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile String lastContentEncoding;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/push/send", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = "{\"data\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+        server.createContext("/echo", exchange -> {
+            byte[] response = ByteArrayBuffer.readFully(exchange.getRequestBody()).toByteArray();
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+        server.createContext("/gzip-echo", exchange -> {
+            lastContentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equals(lastContentEncoding))
+                in = new GZIPInputStream(in);
+            byte[] request = ByteArrayBuffer.readFully(in).toByteArray();
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = new GZIPOutputStream(exchange.getResponseBody())) {
+                os.write(request);
+            }
+        });
+        server.createContext("/throttled", exchange -> {
+            byte[] response = "{\"errors\":[{\"code\":\"TOO_MANY_REQUESTS\"}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Retry-After", "3");
+            exchange.sendResponseHeaders(429, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/push/send");
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void requestsShareOneBoundedPool() throws Exception {
+        try (DefaultPushServerResolver resolver = new DefaultPushServerResolver(1, 1)) {
+            CompletableFuture<String> first = resolver.postAsync(url, "[]");
+            CompletableFuture<String> queued = resolver.postAsync(url, "[]");
+            CompletableFuture<String> rejected = resolver.postAsync(url, "[]");
+
+            assertEquals(1, resolver.getPoolSize());
+            assertEquals(1, resolver.getQueueSize());
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+
+            release.countDown();
+            assertEquals("{\"data\":[]}", first.get(10, TimeUnit.SECONDS));
+            assertEquals("{\"data\":[]}", queued.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closedResolverRejectsRequests() {
+        DefaultPushServerResolver resolver = new DefaultPushServerResolver();
+        resolver.close();
+        assertTrue(resolver.isClosed());
+        assertTrue(resolver.postAsync(url, "[]").isCompletedExceptionally());
+    }
+
+    @Test
+    void postsByteBufferBodies() throws Exception {
+        byte[] bytes = "xx{\"ids\":[\"\u00e4\"]}yy".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.wrap(bytes, 2, bytes.length - 4);
+        URL echoUrl = new URL(url, "/echo");
+        try (DefaultPushServerResolver resolver = new DefaultPushServerResolver()) {
+            InputStream response = resolver.postAsyncStreaming(echoUrl, body).get(10, TimeUnit.SECONDS);
+            assertEquals("{\"ids\":[\"\u00e4\"]}", ByteArrayBuffer.readFully(response).toUtf8String());
+            assertEquals(2, body.position());
+        }
+    }
+
+    @Test
+    void failsWithTheStatusOfErrorResponses() throws Exception {
+        URL throttled = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/throttled");
+        try (DefaultPushServerResolver resolver = new DefaultPushServerResolver()) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> resolver.postAsync(throttled, "[]").get(10, TimeUnit.SECONDS));
+            PushServerException cause = (PushServerException) e.getCause();
+            assertEquals(429, cause.getStatusCode());
+            assertEquals(Duration.ofSeconds(3), cause.getRetryAfter());
+            assertEquals("{\"errors\":[{\"code\":\"TOO_MANY_REQUESTS\"}]}", cause.getResponseBody());
+            assertTrue(cause.isRetryable());
+        }
+    }
+
+    @Test
+    void compressesBodiesOverTheThreshold() throws Exception {
+        URL gzipEcho = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/gzip-echo");
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100; i++)
+            json.append(i > 0 ? "," : "").append("{\"to\":[\"ExponentPushToken[").append(i).append("]\"],\"title\":\"Sale\"}");
+        String large = json.append("]").toString();
+
+        try (DefaultPushServerResolver resolver = new DefaultPushServerResolver()) {
+            resolver.setCompressionThreshold(1024);
+
+            assertEquals("[]", resolver.postAsync(gzipEcho, "[]").get(10, TimeUnit.SECONDS));
+            assertNull(lastContentEncoding);
+
+            assertEquals(large, resolver.postAsync(gzipEcho, large).get(10, TimeUnit.SECONDS));
+            assertEquals("gzip", lastContentEncoding);
+        }
+    }
+
+    @Test
+    void decodesContentEncodingsWhateverTheLocale() throws Exception {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write("[]".getBytes(StandardCharsets.UTF_8));
+        }
+        Locale locale = Locale.getDefault();
+        // Lower casing "GZIP" in Turkish gives a dotless i.
+        Locale.setDefault(new Locale("tr", "TR"));
+        try (InputStream in = ContentEncoding.decode("GZIP", new ByteArrayInputStream(gzipped.toByteArray()))) {
+            assertEquals('[', in.read());
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void readTimeoutFailsTheRequestAndFreesTheThread() throws Exception {
+        try (DefaultPushServerResolver resolver = new DefaultPushServerResolver(1, 1)) {
+            resolver.setReadTimeout(Duration.ofMillis(200));
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> resolver.postAsync(url, "[]").get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+            _awaitIdle(resolver);
+        }
+    }
+
+    @Test
+    void requestTimeoutFailsTheRequestAndDropsTheConnection() throws Exception {
+        try (DefaultPushServerResolver resolver = new DefaultPushServerResolver(1, 1)) {
+            resolver.setReadTimeout(Duration.ZERO);
+            resolver.setRequestTimeout(Duration.ofMillis(200));
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> resolver.postAsync(url, "[]").get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof TimeoutException);
+            _awaitIdle(resolver);
+        }
+    }
+
+    @Test
+    void cancellingAbortsTheRequest() throws Exception {
+        try (DefaultPushServerResolver resolver = new DefaultPushServerResolver(1, 1)) {
+            resolver.setReadTimeout(Duration.ZERO);
+            CompletableFuture<String> response = resolver.postAsync(url, "[]");
+            while (resolver.getActiveCount() == 0)
+                Thread.sleep(10);
+            response.cancel(true);
+            _awaitIdle(resolver);
+        }
+    }
+
+    private static void _awaitIdle(DefaultPushServerResolver resolver) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (resolver.getActiveCount() > 0) {
+            assertTrue(System.nanoTime() < deadline, "worker thread is still busy");
+            Thread.sleep(10);
+        }
+    }
+}
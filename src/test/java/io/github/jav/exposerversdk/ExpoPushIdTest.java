@@ -0,0 +1,81 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpoPushIdTest {
+    private static final String ID = "2011eb6d-d4d3-440c-a93c-37ac4b51ea09";
+
+    @Test
+    void packsLowerCaseUuidsOnly() {
+        ExpoPushId id = ExpoPushId.parse(ID);
+        UUID uuid = UUID.fromString(ID);
+        assertEquals(uuid.getMostSignificantBits(), id.getMostSigBits());
+        assertEquals(uuid.getLeastSignificantBits(), id.getLeastSigBits());
+        assertEquals(ID, id.toString());
+        assertEquals(id, ExpoPushId.tryParse(ID));
+        assertEquals("ffffffff-ffff-ffff-ffff-ffffffffffff", ExpoPushId.parse("ffffffff-ffff-ffff-ffff-ffffffffffff").toString());
+
+        assertNull(ExpoPushId.tryParse(ID.toUpperCase()));
+        assertNull(ExpoPushId.tryParse("id"));
+        assertThrows(IllegalArgumentException.class, () -> ExpoPushId.parse("2011eb6d-d4d3-440c-a93c+37ac4b51ea09"));
+    }
+
+    @Test
+    void listStoresIdsInLongs() {
+        ExpoPushIdList ids = new ExpoPushIdList(1);
+        for (int i = 0; i < 1000; i++)
+            ids.add(new ExpoPushId(i, -i));
+        assertTrue(ids.tryAdd(ID));
+        assertFalse(ids.tryAdd("not an id"));
+        assertEquals(1001, ids.size());
+        assertEquals(new ExpoPushId(999, -999), ids.get(999));
+        assertEquals(ID, ids.getString(1000));
+
+        ExpoPushIdList copy = ids.copyOfRange(998, 1001);
+        assertEquals(Arrays.asList(ids.get(998), ids.get(999), ids.get(1000)), copy);
+        assertThrows(IndexOutOfBoundsException.class, () -> copy.get(3));
+    }
+
+    @Test
+    void serializesAsStrings() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ExpoPushIdList ids = ExpoPushIdList.parse(Arrays.asList(ID, "00000000-0000-0000-0000-000000000001"));
+        String json = mapper.writeValueAsString(ids);
+        assertEquals("[\"" + ID + "\",\"00000000-0000-0000-0000-000000000001\"]", json);
+        assertEquals(ids, mapper.readValue(json, ExpoPushIdList.class));
+        assertEquals("\"" + ID + "\"", mapper.writeValueAsString(ExpoPushId.parse(ID)));
+        assertEquals(ExpoPushId.parse(ID), mapper.readValue("\"" + ID + "\"", ExpoPushId.class));
+    }
+
+    @Test
+    void clientRequestsReceiptsForPackedIds() throws Exception {
+        List<String> requests = new ArrayList<>();
+        PushClient client = new PushClient((URL url, String json) -> {
+            requests.add(json);
+            return CompletableFuture.completedFuture("{\"data\":{\"" + ID + "\":{\"status\":\"ok\"}}}");
+        });
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        ExpoPushIdList ids = new ExpoPushIdList();
+        for (int i = 0; i < 301; i++)
+            ids.add(ExpoPushId.parse(ID));
+
+        List<ExpoPushIdList> chunks = client.chunkPushNotificationReceiptIds(ids);
+        assertEquals(2, chunks.size());
+        assertEquals(300, chunks.get(0).size());
+        List<ExpoPushReceiept> receipts = client.getPushNotificationReceiptsAsync(chunks.get(1)).get(5, TimeUnit.SECONDS);
+        assertEquals("{\"ids\":[\"" + ID + "\"]}", requests.get(0));
+        assertEquals(ID, receipts.get(0).id);
+    }
+}
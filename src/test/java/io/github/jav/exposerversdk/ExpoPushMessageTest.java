@@ -9,9 +9,13 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ExpoPushMessageTest {
     @Test
@@ -79,4 +83,33 @@ class ExpoPushMessageTest {
         assertEquals(mapper.readTree(jsonControl), mapper.readTree(epmJson));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void equalsAndHashCode() {
+        ExpoPushMessage epm1 = new ExpoPushMessage("Recipient 1");
+        ExpoPushMessage epm2 = new ExpoPushMessage("Recipient 1");
+        assertEquals(epm1, epm2);
+        assertEquals(epm1.hashCode(), epm2.hashCode());
+
+        epm1.title = "title";
+        assertNotEquals(epm1, epm2);
+        epm2.title = "title";
+        assertEquals(epm1, epm2);
+
+        epm1.data = Collections.singletonMap("key", "value");
+        assertNotEquals(epm1, epm2);
+        epm2.data = new HashMap<>(Collections.singletonMap("key", "value"));
+        assertEquals(epm1, epm2);
+
+        epm1.sound = new ExpoMessageSound("default");
+        assertNotEquals(epm1, epm2);
+        epm2.sound = new ExpoMessageSound("default");
+        assertEquals(epm1, epm2);
+        assertEquals(epm1.hashCode(), epm2.hashCode());
+
+        epm2.to = Collections.singletonList("Recipient 2");
+        assertNotEquals(epm1, epm2);
+        assertTrue(epm1.payloadEquals(epm2));
+        assertEquals(epm1.payloadHashCode(), epm2.payloadHashCode());
+    }
+}
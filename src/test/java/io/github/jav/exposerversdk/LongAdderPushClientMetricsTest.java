@@ -0,0 +1,83 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongAdderPushClientMetricsTest {
+
+    @Test
+    void recordsChunksRequestsAndTicketOutcomes() throws Exception {
+        PushServerResolver resolver = (URL url, String json) -> CompletableFuture.completedFuture("{\"data\":["
+                + "{\"status\":\"ok\",\"id\":\"a\"},"
+                + "{\"status\":\"error\",\"message\":\"gone\",\"details\":{\"error\":\"DeviceNotRegistered\"}}]}");
+        LongAdderPushClientMetrics metrics = new LongAdderPushClientMetrics();
+        PushClient client = new PushClient(resolver);
+        client.setBaseApiUrl(URI.create("http://localhost/--/api/v2"));
+        client.setMetrics(metrics);
+
+        List<ExpoPushTicket> tickets = client.sendPushNotificationsAsync(Arrays.asList(
+                new ExpoPushMessage(Arrays.asList("ExponentPushToken[a]", "ExponentPushToken[b]"))))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, tickets.size());
+        assertEquals(1, metrics.getRequestCount(PushClientMetrics.SEND));
+        assertEquals(0, metrics.getErrorCount(PushClientMetrics.SEND));
+        assertEquals(0, metrics.getInFlight(PushClientMetrics.SEND));
+        assertTrue(metrics.getSerializedBytes(PushClientMetrics.SEND) > 0);
+        assertTrue(metrics.getLatencyQuantileNanos(PushClientMetrics.SEND, 0.99) > 0);
+        assertEquals(1, metrics.getChunkCount());
+        assertEquals(2.0 / PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT, metrics.getChunkFillRatio(), 1e-9);
+
+        Map<String, Long> ticketCounts = metrics.getTicketCounts();
+        assertEquals(1L, ticketCounts.get("ok"));
+        assertEquals(1L, ticketCounts.get("DeviceNotRegistered"));
+        assertEquals(0, metrics.getRequestCount(PushClientMetrics.GET_RECEIPTS));
+    }
+
+    @Test
+    void recordsRetries() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PushServerResolver flaky = (url, json) -> {
+            if (calls.incrementAndGet() == 1) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new PushServerException(503, null, null));
+                return failed;
+            }
+            return CompletableFuture.completedFuture("{}");
+        };
+        LongAdderPushClientMetrics metrics = new LongAdderPushClientMetrics();
+        try (RetryingPushServerResolver resolver = new RetryingPushServerResolver(flaky)) {
+            resolver.setInitialBackoff(Duration.ofMillis(1));
+            resolver.setMetrics(metrics);
+            resolver.postAsync(new URL("https://exp.host/--/api/v2/push/getReceipts"), "{}").get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, metrics.getRetryCount(PushClientMetrics.GET_RECEIPTS));
+    }
+
+    @Test
+    void latencyQuantilesAreUpperBoundsWithinAFactorOfTwo() {
+        LongAdderPushClientMetrics metrics = new LongAdderPushClientMetrics();
+        for (int i = 0; i < 99; i++) {
+            metrics.requestStarted(PushClientMetrics.SEND);
+            metrics.requestCompleted(PushClientMetrics.SEND, 1000, null);
+        }
+        metrics.requestStarted(PushClientMetrics.SEND);
+        metrics.requestCompleted(PushClientMetrics.SEND, 1_000_000, new IllegalStateException());
+
+        assertEquals(1024, metrics.getLatencyQuantileNanos(PushClientMetrics.SEND, 0.5));
+        assertEquals(1024, metrics.getLatencyQuantileNanos(PushClientMetrics.SEND, 0.99));
+        assertEquals(1 << 20, metrics.getLatencyQuantileNanos(PushClientMetrics.SEND, 1.0));
+        assertEquals(1, metrics.getErrorCount(PushClientMetrics.SEND));
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-process stand-in for the Expo push API, serving {@code /push/send} and {@code /push/getReceipts} over real
+ * HTTP on a local port. Every recipient gets a ticket, and its receipt becomes available after the receipt delay.
+ * Tokens marked {@link #unregister(String) unregistered} get DeviceNotRegistered tickets.
+ * <p>
+ * Latency, server errors and throttling can be dialled in to see how clients behave when Expo is slow or failing.
+ */
+class MockExpoPushServer implements AutoCloseable {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration latencyJitter = Duration.ZERO;
+    private volatile double errorRate = 0;
+    private volatile double throttleRate = 0;
+    private volatile Duration retryAfter = Duration.ofSeconds(1);
+    private volatile Duration receiptDelay = Duration.ZERO;
+    private volatile boolean compressResponses = false;
+    private final AtomicLong compressedRequests = new AtomicLong();
+
+    private final Set<String> unregisteredTokens = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // Receipt id to the time, in nanoTime, from which its receipt is available.
+    private final ConcurrentHashMap<String, Long> pendingReceipts = new ConcurrentHashMap<>();
+    private final AtomicLong sendRequests = new AtomicLong();
+    private final AtomicLong receiptRequests = new AtomicLong();
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    MockExpoPushServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/--/api/v2/push/send", exchange -> _handle(exchange, true));
+        server.createContext("/--/api/v2/push/getReceipts", exchange -> _handle(exchange, false));
+        executor = Executors.newCachedThreadPool(new DefaultPushServerResolver.DaemonThreadFactory("mock-expo-push-server"));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return the URI to pass to {@link PushClient#setBaseApiUrl(URI)}
+     */
+    URI getBaseApiUrl() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/--/api/v2");
+    }
+
+    private void _handle(HttpExchange exchange, boolean send) throws IOException {
+        try {
+            (send ? sendRequests : receiptRequests).incrementAndGet();
+            JsonNode request;
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                compressedRequests.incrementAndGet();
+                in = new GZIPInputStream(in);
+            }
+            request = mapper.readTree(in);
+            _sleep();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double roll = random.nextDouble();
+            if (roll < throttleRate) {
+                rejectedRequests.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter.getSeconds()));
+                _respond(exchange, 429, "{\"errors\":[{\"code\":\"TOO_MANY_REQUESTS\",\"message\":\"Rate limit exceeded\"}]}");
+                return;
+            }
+            if (roll < throttleRate + errorRate) {
+                rejectedRequests.incrementAndGet();
+                _respond(exchange, 503, "{\"errors\":[{\"code\":\"INTERNAL_SERVER_ERROR\",\"message\":\"Try again\"}]}");
+                return;
+            }
+            _respond(exchange, 200, mapper.writeValueAsString(send ? _tickets(request) : _receipts(request)));
+        } catch (RuntimeException | IOException e) {
+            _respond(exchange, 400, "{\"errors\":[{\"code\":\"VALIDATION_ERROR\",\"message\":\"" + e.getClass().getSimpleName() + "\"}]}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private ObjectNode _tickets(JsonNode messages) {
+        ObjectNode response = mapper.createObjectNode();
+        ArrayNode data = response.putArray("data");
+        long readyAt = System.nanoTime() + receiptDelay.toNanos();
+        for (JsonNode message : messages) {
+            JsonNode to = message.get("to");
+            Iterable<JsonNode> recipients = to.isArray() ? to : Collections.singletonList(to);
+            for (JsonNode recipient : recipients) {
+                notifications.incrementAndGet();
+                ObjectNode ticket = data.addObject();
+                String token = recipient.asText();
+                if (unregisteredTokens.contains(token)) {
+                    ticket.put("status", "error");
+                    ticket.put("message", "\"" + token + "\" is not a registered push notification recipient");
+                    ticket.putObject("details").put("error", "DeviceNotRegistered");
+                } else {
+                    String id = UUID.randomUUID().toString();
+                    pendingReceipts.put(id, readyAt);
+                    ticket.put("status", "ok");
+                    ticket.put("id", id);
+                }
+            }
+        }
+        return response;
+    }
+
+    private ObjectNode _receipts(JsonNode request) {
+        ObjectNode response = mapper.createObjectNode();
+        ObjectNode data = response.putObject("data");
+        long now = System.nanoTime();
+        for (JsonNode id : request.get("ids")) {
+            Long readyAt = pendingReceipts.get(id.asText());
+            if (readyAt != null && now - readyAt >= 0) {
+                pendingReceipts.remove(id.asText());
+                data.putObject(id.asText()).put("status", "ok");
+            }
+        }
+        return response;
+    }
+
+    private void _sleep() {
+        long nanos = latency.toNanos();
+        long jitter = latencyJitter.toNanos();
+        if (jitter > 0)
+            nanos += ThreadLocalRandom.current().nextLong(jitter);
+        if (nanos <= 0)
+            return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void _respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compressResponses && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(status, 0);
+            try (OutputStream os = new GZIPOutputStream(exchange.getResponseBody())) {
+                os.write(bytes);
+            }
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    void unregister(String token) {
+        unregisteredTokens.add(token);
+    }
+
+    /**
+     * @param _latency    how long every request takes at least
+     * @param _jitter     a random extra delay of up to this much
+     */
+    void setLatency(Duration _latency, Duration _jitter) {
+        latency = _latency;
+        latencyJitter = _jitter;
+    }
+
+    /**
+     * @param _errorRate the share of requests answered with 503, between 0 and 1
+     */
+    void setErrorRate(double _errorRate) {
+        errorRate = _errorRate;
+    }
+
+    /**
+     * @param _throttleRate the share of requests answered with 429 and {@code Retry-After}, between 0 and 1
+     */
+    void setThrottleRate(double _throttleRate, Duration _retryAfter) {
+        throttleRate = _throttleRate;
+        retryAfter = _retryAfter;
+    }
+
+    /**
+     * @param _receiptDelay how long after its ticket a receipt becomes available
+     */
+    void setReceiptDelay(Duration _receiptDelay) {
+        receiptDelay = _receiptDelay;
+    }
+
+    /**
+     * @param _compressResponses whether to gzip responses to clients that accept it
+     */
+    void setCompressResponses(boolean _compressResponses) {
+        compressResponses = _compressResponses;
+    }
+
+    /**
+     * @return the number of requests that arrived gzip-compressed
+     */
+    long getCompressedRequests() {
+        return compressedRequests.get();
+    }
+
+    long getSendRequests() {
+        return sendRequests.get();
+    }
+
+    long getReceiptRequests() {
+        return receiptRequests.get();
+    }
+
+    long getNotifications() {
+        return notifications.get();
+    }
+
+    long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
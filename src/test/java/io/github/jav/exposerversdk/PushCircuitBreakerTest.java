@@ -0,0 +1,184 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushCircuitBreakerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void opensOnFailuresAndClosesAfterSuccessfulTrials() {
+        AtomicLong clock = new AtomicLong();
+        PushCircuitBreaker breaker = new PushCircuitBreaker(Duration.ofSeconds(10), 10, clock::get);
+        breaker.setMinimumCalls(10);
+        breaker.setHalfOpenTrials(2);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(0);
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onError(0);
+        }
+        assertEquals(PushCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onError(0);
+        assertEquals(PushCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isCallPermitted());
+
+        clock.addAndGet(30 * SECOND);
+        assertEquals(PushCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        assertEquals(PushCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedTrialReopens() {
+        AtomicLong clock = new AtomicLong();
+        PushCircuitBreaker breaker = new PushCircuitBreaker(Duration.ofSeconds(10), 10, clock::get);
+        breaker.setMinimumCalls(1);
+        breaker.onError(0);
+        clock.addAndGet(30 * SECOND);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onError(0);
+        assertEquals(PushCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void reopeningStartsANewOpenPeriod() {
+        AtomicLong clock = new AtomicLong();
+        PushCircuitBreaker breaker = new PushCircuitBreaker(Duration.ofSeconds(10), 10, clock::get);
+        breaker.setMinimumCalls(1);
+        breaker.onError(0);
+        clock.addAndGet(30 * SECOND);
+
+        long trial = breaker.acquirePermit();
+        clock.addAndGet(5 * SECOND);
+        breaker.onError(trial, 0);
+        clock.addAndGet(29 * SECOND);
+        assertEquals(PushCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(PushCircuitBreaker.NO_PERMIT, breaker.acquirePermit());
+        clock.addAndGet(SECOND);
+        assertNotEquals(PushCircuitBreaker.NO_PERMIT, breaker.acquirePermit());
+    }
+
+    @Test
+    void ignoresOutcomesOfPermitsFromEarlierStates() {
+        AtomicLong clock = new AtomicLong();
+        PushCircuitBreaker breaker = new PushCircuitBreaker(Duration.ofSeconds(10), 10, clock::get);
+        breaker.setMinimumCalls(1);
+        breaker.setHalfOpenTrials(2);
+        long closedPermit = breaker.acquirePermit();
+        long otherClosedPermit = breaker.acquirePermit();
+        breaker.onError(breaker.acquirePermit(), 0);
+        clock.addAndGet(30 * SECOND);
+
+        long trial = breaker.acquirePermit();
+        assertNotEquals(PushCircuitBreaker.NO_PERMIT, trial);
+        // A late success and a late cancellation from before the breaker opened neither close it nor free a slot.
+        breaker.onSuccess(closedPermit, 0);
+        breaker.release(otherClosedPermit);
+        assertNotEquals(PushCircuitBreaker.NO_PERMIT, breaker.acquirePermit());
+        assertEquals(PushCircuitBreaker.NO_PERMIT, breaker.acquirePermit());
+        breaker.onSuccess(trial, 0);
+        assertEquals(PushCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // Neither does a late failure reopen it.
+        breaker.onError(closedPermit, 0);
+        assertEquals(PushCircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void countsSlowCallsAndForgetsOldOutcomes() {
+        AtomicLong clock = new AtomicLong();
+        PushCircuitBreaker breaker = new PushCircuitBreaker(Duration.ofSeconds(10), 10, clock::get);
+        breaker.setMinimumCalls(4);
+
+        for (int i = 0; i < 3; i++)
+            breaker.onError(0);
+        clock.addAndGet(11 * SECOND);
+        breaker.onError(0);
+        assertEquals(PushCircuitBreaker.State.CLOSED, breaker.getState());
+
+        for (int i = 0; i < 3; i++)
+            breaker.onSuccess(20 * SECOND);
+        assertEquals(PushCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onSuccess(20 * SECOND);
+        assertEquals(PushCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void resolverFailsFastWhileOpen() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PushServerResolver failing = (url, json) -> {
+            calls.incrementAndGet();
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new PushServerException(503, null, null));
+            return future;
+        };
+        PushCircuitBreaker breaker = new PushCircuitBreaker();
+        breaker.setMinimumCalls(2);
+        try (CircuitBreakerPushServerResolver resolver = new CircuitBreakerPushServerResolver(failing, breaker)) {
+            URL url = new URL("http://localhost/");
+            for (int i = 0; i < 2; i++)
+                assertThrows(ExecutionException.class, () -> resolver.postAsync(url, "[]").get());
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> resolver.postAsync(url, "[]").get());
+            assertTrue(e.getCause() instanceof PushCircuitOpenException);
+            assertEquals(2, calls.get());
+        }
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() throws Exception {
+        PushServerResolver rejecting = (url, json) -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new PushServerException(400, null, null));
+            return future;
+        };
+        PushCircuitBreaker breaker = new PushCircuitBreaker();
+        breaker.setMinimumCalls(2);
+        try (CircuitBreakerPushServerResolver resolver = new CircuitBreakerPushServerResolver(rejecting, breaker)) {
+            for (int i = 0; i < 5; i++)
+                assertThrows(ExecutionException.class, () -> resolver.postAsync(new URL("http://localhost/"), "[]").get());
+            assertEquals(PushCircuitBreaker.State.CLOSED, breaker.getState());
+        }
+    }
+
+    @Test
+    void closesTheWrappedResolver() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        class Closeable implements PushServerResolver, AutoCloseable {
+            @Override
+            public CompletableFuture<String> postAsync(URL url, String json) {
+                return CompletableFuture.completedFuture("{}");
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        }
+        try (CircuitBreakerPushServerResolver resolver =
+                     new CircuitBreakerPushServerResolver(new Closeable(), new PushCircuitBreaker())) {
+            assertEquals("{}", resolver.postAsync(new URL("http://localhost/"), "[]").get());
+        }
+        assertEquals(1, closed.get());
+    }
+}
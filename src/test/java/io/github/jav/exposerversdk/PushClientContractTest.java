@@ -0,0 +1,204 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The send, receipt and error cases of {@link PushClientTest}, run through a real transport against a local
+ * server. Each {@link PushServerResolver} implementation extends this class.
+ */
+abstract class PushClientContractTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private PushServerResolver resolver;
+    private PushClient client;
+    // The status and body the server answers with, the body is computed from the request.
+    private volatile int status = 200;
+    private volatile Responder responder = request -> "{}";
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    interface Responder {
+        String respond(String request) throws IOException;
+    }
+
+    protected abstract PushServerResolver _resolver();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::_handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        resolver = _resolver();
+        client = new PushClient(resolver);
+        client.setBaseApiUrl(URI.create("http://127.0.0.1:" + server.getAddress().getPort()));
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        if (resolver instanceof AutoCloseable)
+            ((AutoCloseable) resolver).close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private void _handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+                in = new GZIPInputStream(in);
+            ByteArrayOutputStream request = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) > 0; )
+                request.write(buffer, 0, read);
+            byte[] body = responder.respond(new String(request.toByteArray(), StandardCharsets.UTF_8))
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Test
+    void getOneReceipt() throws Exception {
+        final String SOURCE_JSON = "{" +
+                "    \"data\": " +
+                "    {" +
+                "        \"2011eb6d-d4d3-440c-a93c-37ac4b51ea09\": { " +
+                "            \"status\":\"error\"," +
+                "            \"message\":\"The Apple Push Notification service ...  this error means.\"," +
+                "            \"details\":{" +
+                "                \"apns\":{" +
+                "                    \"reason\":\"PayloadTooLarge\", " +
+                "                    \"statusCode\":413" +
+                "                }," +
+                "                \"error\":\"MessageTooBig\"," +
+                "                \"sentAt\":1586353449" +
+                "            }," +
+                "            \"__debug\": {}" +
+                "        }" +
+                "    }" +
+                "}";
+        responder = request -> SOURCE_JSON;
+
+        List<ExpoPushReceiept> receipts = client.getPushNotificationReceiptsAsync(
+                Arrays.asList("2011eb6d-d4d3-440c-a93c-37ac4b51ea09")).get(10, TimeUnit.SECONDS);
+
+        ExpoPushReceiept receipt = receipts.get(0);
+        assertEquals("2011eb6d-d4d3-440c-a93c-37ac4b51ea09", receipt.id);
+        assertEquals("error", receipt.getStatus());
+        assertTrue(receipt.getMessage().startsWith("The Apple Push"));
+        assertTrue(receipt.getMessage().endsWith("this error means."));
+        assertEquals("MessageTooBig", receipt.getDetails().getError());
+    }
+
+    @Test
+    void sendPushNotificationsParsesTicketsAfterOtherFields() throws Exception {
+        responder = request -> "{" +
+                "    \"errors\": []," +
+                "    \"data\": [" +
+                "        { \"status\": \"ok\", \"id\": \"XXXXXXXX-XXXX-XXXX-XXXX-XXXXXXXXXXXX\" }," +
+                "        { \"status\": \"error\", \"message\": \"not registered\"," +
+                "          \"details\": { \"error\": \"DeviceNotRegistered\" } }" +
+                "    ]" +
+                "}";
+
+        List<ExpoPushTicket> tickets = client.sendPushNotificationsAsync(
+                Arrays.asList(new ExpoPushMessage("?"), new ExpoPushMessage("?"))).get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, tickets.size());
+        assertEquals("ok", tickets.get(0).getStatus());
+        assertEquals("XXXXXXXX-XXXX-XXXX-XXXX-XXXXXXXXXXXX", tickets.get(0).id);
+        assertEquals("DeviceNotRegistered", tickets.get(1).getDetails().getError());
+    }
+
+    @Test
+    void sendPushNotificationsBulkMapsTicketsToMessagesAndRecipients() throws Exception {
+        List<ExpoPushMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            messages.add(new ExpoPushMessage("single-" + i));
+        }
+        List<String> broadcastRecipients = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            broadcastRecipients.add("broadcast-" + i);
+        }
+        ExpoPushMessage broadcast = new ExpoPushMessage(broadcastRecipients);
+        messages.add(broadcast);
+        responder = PushClientContractTest::_ticketPerRecipient;
+
+        List<ExpoPushSendResult> results = client.sendPushNotificationsBulkAsync(messages, 2)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(400, results.size());
+        assertTrue(maxInFlight.get() <= 2);
+        for (ExpoPushSendResult result : results) {
+            assertEquals(result.getRecipient(), result.getTicket().id);
+            assertTrue(result.getMessage().to.contains(result.getRecipient()));
+            assertTrue(messages.stream().anyMatch(message -> message == result.getMessage()));
+        }
+        assertEquals(150, results.stream().filter(result -> result.getMessage() == broadcast).count());
+    }
+
+    @Test
+    void sendPushNotificationsBulkFailsWhenAChunkFails() {
+        List<ExpoPushMessage> messages = new ArrayList<>(Collections.nCopies(1000, new ExpoPushMessage("?")));
+        status = 500;
+        responder = request -> "{\"errors\":[{\"code\":\"INTERNAL_SERVER_ERROR\"}]}";
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.sendPushNotificationsBulkAsync(
+                messages, 3, result -> {
+                }).get(10, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause() instanceof PushServerException);
+        assertEquals(500, ((PushServerException) e.getCause()).getStatusCode());
+        assertTrue(requests.get() < 10);
+    }
+
+    private static String _ticketPerRecipient(String requestJson) throws IOException {
+        ArrayNode tickets = MAPPER.createArrayNode();
+        for (JsonNode message : MAPPER.readTree(requestJson)) {
+            for (JsonNode recipient : message.get("to")) {
+                tickets.addObject().put("status", "ok").put("id", recipient.asText());
+            }
+        }
+        return MAPPER.createObjectNode().set("data", tickets).toString();
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives {@link PushClient} through {@link DefaultPushServerResolver} against {@link MockExpoPushServer}.
+ */
+class PushClientEndToEndTest {
+    private MockExpoPushServer server;
+    private DefaultPushServerResolver resolver;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockExpoPushServer();
+        resolver = new DefaultPushServerResolver();
+    }
+
+    @AfterEach
+    void stopServer() {
+        resolver.close();
+        server.close();
+    }
+
+    private static List<ExpoPushMessage> _broadcast(int recipients) {
+        List<String> to = new ArrayList<>();
+        for (int i = 0; i < recipients; i++)
+            to.add("ExponentPushToken[" + i + "]");
+        return Collections.singletonList(new ExpoPushMessage(to));
+    }
+
+    @Test
+    void bulkSendMapsTicketsAndReceiptsBecomeAvailable() throws Exception {
+        server.unregister("ExponentPushToken[7]");
+        server.setReceiptDelay(Duration.ofSeconds(2));
+        PushClient client = new PushClient(resolver);
+        client.setBaseApiUrl(server.getBaseApiUrl());
+
+        List<ExpoPushSendResult> results = client.sendPushNotificationsBulkAsync(_broadcast(250), 2)
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(250, results.size());
+        assertEquals(3, server.getSendRequests());
+        ExpoPushSendResult unregistered = results.stream()
+                .filter(result -> "error".equals(result.getTicket().getStatus()))
+                .findFirst().get();
+        assertEquals("ExponentPushToken[7]", unregistered.getRecipient());
+
+        List<String> ids = results.stream()
+                .map(result -> result.getTicket().id)
+                .filter(id -> id != null)
+                .limit(PushClient.PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT)
+                .collect(Collectors.toList());
+        assertEquals(0, client.getPushNotificationReceiptsAsync(ids).get(10, TimeUnit.SECONDS).size());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        // The mock server hands out each receipt once, and the chunks' receipts may become ready in separate polls.
+        int available = 0;
+        do {
+            Thread.sleep(100);
+            available += client.getPushNotificationReceiptsAsync(ids).get(10, TimeUnit.SECONDS).size();
+        } while (available < ids.size() && System.nanoTime() < deadline);
+        assertEquals(ids.size(), available);
+    }
+
+    @Test
+    void retriesRideOutThrottlingAndErrors() throws Exception {
+        server.setThrottleRate(0.3, Duration.ZERO);
+        server.setErrorRate(0.2);
+        try (RetryingPushServerResolver retrying = new RetryingPushServerResolver(resolver)) {
+            retrying.setInitialBackoff(Duration.ofMillis(1));
+            retrying.setMaxAttempts(30);
+            PushClient client = new PushClient(retrying);
+            client.setBaseApiUrl(server.getBaseApiUrl());
+
+            List<ExpoPushSendResult> results = client.sendPushNotificationsBulkAsync(_broadcast(1000), 4)
+                    .get(30, TimeUnit.SECONDS);
+
+            assertEquals(1000, results.size());
+            // Only chunks that were answered produced notifications, none were sent twice.
+            assertEquals(1000, server.getNotifications());
+            assertEquals(10 + server.getRejectedRequests(), server.getSendRequests());
+        }
+    }
+}
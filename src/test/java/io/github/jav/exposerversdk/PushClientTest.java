@@ -1,16 +1,29 @@
 package io.github.jav.exposerversdk;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
@@ -28,6 +41,13 @@ class PushClientTest {
         assertEquals(mockBaseApiUrl, client.getBaseApiUrl());
     }
 
+    @Test
+    public void objectMapperIsInjectable() {
+        ObjectMapper mapper = new ObjectMapper();
+        PushClient client = new PushClient(mock(PushServerResolver.class), mapper);
+        assertSame(mapper, client.getObjectMapper());
+    }
+
     @Test
     public void chunkListsOfPushNotificationMessages() {
         PushClient client = new PushClient();
@@ -106,6 +126,30 @@ class PushClientTest {
         assertEquals(false, PushClient.isExponentPushToken(inValidToken1), "Empty key field");
     }
 
+    @Test
+    public void isExponentPushTokenMatchesUuidsExactly() {
+        assertTrue(PushClient.isExponentPushToken("f5741a13-bcda-434b-a316-5dc0e6ffa94f"));
+        assertTrue(PushClient.isExponentPushToken("zzzzzzzz-ZZZZ-0000-aaaa-999999999999"));
+        assertFalse(PushClient.isExponentPushToken("F5741A13-BCDA-434B-A316-5DC0E6FFA94"));
+        assertFalse(PushClient.isExponentPushToken("F5741A13-BCDA-434B-A316-5DC0E6FFA94FF"));
+        assertFalse(PushClient.isExponentPushToken("F5741A13_BCDA-434B-A316-5DC0E6FFA94F"));
+        assertFalse(PushClient.isExponentPushToken("F5741A13-BCDA-434B-A316-5DC0E6FF\u00c494F"));
+        assertFalse(PushClient.isExponentPushToken(""));
+    }
+
+    @Test
+    public void partitionExponentPushTokensSplitsValidAndInvalid() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            tokens.add(i % 2 == 0 ? "ExpoPushToken[" + i + "]" : "invalid-" + i);
+        }
+        Map<Boolean, List<String>> partitioned = PushClient.partitionExponentPushTokens(tokens);
+        assertEquals(10_000, partitioned.get(true).size());
+        assertEquals(10_000, partitioned.get(false).size());
+        assertEquals("ExpoPushToken[0]", partitioned.get(true).get(0));
+        assertEquals("invalid-19999", partitioned.get(false).get(9_999));
+    }
+
     @Test
     public void chunkPushNotificationReceiptIdsCanChunkCorrectly() {
         PushClient client = new PushClient();
@@ -222,6 +266,137 @@ class PushClientTest {
         assertEquals(0, chunks.size());
     }
 
+    @Test
+    public void chunkIteratorPullsMessagesOnDemand() {
+        PushClient client = new PushClient();
+        AtomicInteger pulled = new AtomicInteger();
+        Iterator<ExpoPushMessage> messages = Stream.generate(() -> {
+            pulled.incrementAndGet();
+            return new ExpoPushMessage("?");
+        }).iterator();
+
+        Iterator<List<ExpoPushMessage>> chunks = client.chunkPushNotifications(messages);
+        assertEquals(0, pulled.get());
+        assertEquals(100, chunks.next().size());
+        assertEquals(100, pulled.get());
+        assertEquals(100, chunks.next().size());
+        assertEquals(200, pulled.get());
+    }
+
+    @Test
+    public void chunkStreamMatchesChunkList() {
+        PushClient client = new PushClient();
+        List<ExpoPushMessage> messages = new ArrayList<>();
+        messages.add(new ExpoPushMessage(Collections.nCopies(888, "?")));
+        messages.addAll(Collections.nCopies(999, new ExpoPushMessage("?")));
+        messages.add(new ExpoPushMessage(Arrays.asList("", "?", "")));
+        messages.add(new ExpoPushMessage(Collections.nCopies(90, "?")));
+
+        List<List<ExpoPushMessage>> listChunks = client.chunkPushNotifications(messages);
+        List<List<ExpoPushMessage>> streamChunks = client.chunkPushNotifications(messages.stream()).collect(Collectors.toList());
+
+        assertEquals(listChunks.size(), streamChunks.size());
+        for (int i = 0; i < listChunks.size(); i++) {
+            assertEquals(listChunks.get(i).size(), streamChunks.get(i).size());
+            assertEquals(PushClient._getActualMessagesCount(listChunks.get(i)), PushClient._getActualMessagesCount(streamChunks.get(i)));
+        }
+        assertEquals(888 + 999 + 1 + 90, _countAndValidateMessages(streamChunks));
+    }
+
+    @Test
+    public void chunkingSlicesRecipientsWithoutCopyingTheMessage() {
+        PushClient client = new PushClient();
+        ExpoPushMessage small = new ExpoPushMessage(Arrays.asList("a", "b"));
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            recipients.add("recipient-" + i);
+        }
+        ExpoPushMessage broadcast = new ExpoPushMessage(recipients);
+        broadcast.title = "title";
+
+        List<List<ExpoPushMessage>> chunks = client.chunkPushNotifications(Arrays.asList(small, broadcast));
+
+        assertSame(small, chunks.get(0).get(0));
+        assertEquals(3, chunks.size());
+        assertEquals(recipients.subList(0, 98), chunks.get(0).get(1).to);
+        assertEquals(recipients.subList(98, 198), chunks.get(1).get(0).to);
+        assertEquals(recipients.subList(198, 250), chunks.get(2).get(0).to);
+        for (List<ExpoPushMessage> chunk : chunks) {
+            ExpoPushMessage slice = chunk.get(chunk.size() - 1);
+            assertSame(broadcast, slice.getOrigin());
+            assertEquals("title", slice.title);
+        }
+    }
+
+    @Test
+    public void chunkingKeepsChunksUnderTheByteLimit() throws IOException {
+        PushClient client = new PushClient();
+        client.setMaxChunkBytes(4000);
+        ObjectMapper mapper = new ObjectMapper();
+
+        List<ExpoPushMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ExpoPushMessage message = new ExpoPushMessage("ExponentPushToken[" + i + "]");
+            message.body = String.join("", Collections.nCopies(500 + i * 10, "x"));
+            messages.add(message);
+        }
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            recipients.add("ExponentPushToken[broadcast-" + i + "]");
+        }
+        ExpoPushMessage broadcast = new ExpoPushMessage(recipients);
+        broadcast.body = "short";
+        messages.add(broadcast);
+
+        List<List<ExpoPushMessage>> chunks = client.chunkPushNotifications(messages);
+
+        assertEquals(40 + 300, _countAndValidateMessages(chunks));
+        for (int i = 0; i < chunks.size(); i++) {
+            int chunkBytes = mapper.writeValueAsBytes(chunks.get(i)).length;
+            assertTrue(chunkBytes <= 4000, "chunk " + i + " has " + chunkBytes + " bytes");
+            if (i < chunks.size() - 1 && PushClient._getActualMessagesCount(chunks.get(i)) < PushClient.PUSH_NOTIFICATION_CHUNK_LIMIT) {
+                // Filled as far as the limit allows: the first recipient of the next chunk did not fit.
+                ExpoPushMessage next = chunks.get(i + 1).get(0);
+                List<ExpoPushMessage> grown = new ArrayList<>(chunks.get(i));
+                grown.add(new ExpoPushMessage(next.to.subList(0, 1), next));
+                assertTrue(mapper.writeValueAsBytes(grown).length > 4000 - 100);
+            }
+        }
+    }
+
+    @Test
+    public void coalescePushNotificationsMergesSamePayloadAndDropsDuplicateTokens() {
+        PushClient client = new PushClient();
+        List<ExpoPushMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ExpoPushMessage sale = new ExpoPushMessage("token-" + (i % 5));
+            sale.title = "Sale";
+            messages.add(sale);
+            ExpoPushMessage news = new ExpoPushMessage(Arrays.asList("token-" + i, ""));
+            news.title = "News";
+            messages.add(news);
+        }
+
+        List<ExpoPushMessage> coalesced = client.coalescePushNotifications(messages);
+
+        assertEquals(2, coalesced.size());
+        assertEquals("Sale", coalesced.get(0).title);
+        assertEquals(Arrays.asList("token-0", "token-1", "token-2", "token-3", "token-4"), coalesced.get(0).to);
+        assertEquals("News", coalesced.get(1).title);
+        assertEquals(10, coalesced.get(1).to.size());
+        assertSame(messages.get(0), coalesced.get(0).getOrigin());
+    }
+
+    @Test
+    public void chunkPushNotificationReceiptIdsLazily() {
+        PushClient client = new PushClient();
+        Iterator<List<String>> chunks = client.chunkPushNotificationReceiptIds(Collections.nCopies(601, "id").iterator());
+        assertEquals(300, chunks.next().size());
+        assertEquals(300, chunks.next().size());
+        assertEquals(1, chunks.next().size());
+        assertFalse(chunks.hasNext());
+    }
+
     private long _countAndValidateMessages(List<List<ExpoPushMessage>> chunks) {
         long totalMessageCount = 0;
         for (List<ExpoPushMessage> chunk : chunks) {
@@ -275,4 +450,110 @@ class PushClientTest {
         assertTrue(receipt.getMessage().endsWith("this error means."));
         assertEquals("MessageTooBig", receipt.getDetails().getError());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sendPushNotificationsParsesTicketsAfterOtherFields() throws InterruptedException, ExecutionException {
+        final String SOURCE_JSON = "{" +
+                "    \"errors\": []," +
+                "    \"data\": [" +
+                "        { \"status\": \"ok\", \"id\": \"XXXXXXXX-XXXX-XXXX-XXXX-XXXXXXXXXXXX\" }," +
+                "        { \"status\": \"error\", \"message\": \"not registered\"," +
+                "          \"details\": { \"error\": \"DeviceNotRegistered\" } }" +
+                "    ]" +
+                "}";
+
+        PushServerResolver pushServerResolverMock = mock(PushServerResolver.class);
+        when(pushServerResolverMock.postAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(SOURCE_JSON));
+
+        PushClient client = new PushClient(pushServerResolverMock);
+        List<ExpoPushTicket> tickets = client.sendPushNotificationsAsync(Arrays.asList(new ExpoPushMessage("?"), new ExpoPushMessage("?"))).get();
+
+        assertEquals(2, tickets.size());
+        assertEquals("ok", tickets.get(0).getStatus());
+        assertEquals("XXXXXXXX-XXXX-XXXX-XXXX-XXXXXXXXXXXX", tickets.get(0).id);
+        assertEquals("DeviceNotRegistered", tickets.get(1).getDetails().getError());
+    }
+
+    @Test
+    public void sendPushNotificationsBulkMapsTicketsToMessagesAndRecipients() throws InterruptedException, ExecutionException {
+        List<ExpoPushMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            messages.add(new ExpoPushMessage("single-" + i));
+        }
+        List<String> broadcastRecipients = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            broadcastRecipients.add("broadcast-" + i);
+        }
+        ExpoPushMessage broadcast = new ExpoPushMessage(broadcastRecipients);
+        messages.add(broadcast);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        PushClient client = new PushClient((url, json) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return _ticketPerRecipient(json);
+            });
+        });
+
+        List<ExpoPushSendResult> results = client.sendPushNotificationsBulkAsync(messages, 2).get();
+
+        assertEquals(400, results.size());
+        assertTrue(maxInFlight.get() <= 2);
+        for (ExpoPushSendResult result : results) {
+            assertEquals(result.getRecipient(), result.getTicket().id);
+            assertTrue(result.getMessage().to.contains(result.getRecipient()));
+            assertTrue(messages.stream().anyMatch(message -> message == result.getMessage()));
+        }
+        assertEquals(150, results.stream().filter(result -> result.getMessage() == broadcast).count());
+    }
+
+    @Test
+    public void sendPushNotificationsBulkFailsWhenAChunkFails() {
+        List<ExpoPushMessage> messages = new ArrayList<>(Collections.nCopies(1000, new ExpoPushMessage("?")));
+        AtomicInteger requests = new AtomicInteger();
+        PushClient client = new PushClient((url, json) -> {
+            requests.incrementAndGet();
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IOException("boom"));
+            return failed;
+        });
+
+        CompletableFuture<Void> done = client.sendPushNotificationsBulkAsync(messages, 3, result -> {
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, done::get);
+        assertTrue(e.getCause() instanceof IOException);
+        assertTrue(requests.get() < 10);
+    }
+
+    private static String _ticketPerRecipient(String requestJson) {
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            ArrayNode tickets = mapper.createArrayNode();
+            for (JsonNode message : mapper.readTree(requestJson)) {
+                for (JsonNode recipient : message.get("to")) {
+                    tickets.addObject().put("status", "ok").put("id", recipient.asText());
+                }
+            }
+            return mapper.createObjectNode().set("data", tickets).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    public void cancellingASendCancelsTheRequest() {
+        PushServerResolver resolver = mock(PushServerResolver.class);
+        CompletableFuture<String> request = new CompletableFuture<>();
+        when(resolver.postAsync(any(), any())).thenReturn(request);
+        PushClient client = new PushClient(resolver);
+
+        CompletableFuture<List<ExpoPushTicket>> tickets = client.sendPushNotificationsAsync(
+                Collections.singletonList(new ExpoPushMessage("ExponentPushToken[xxxxxxxxxxxxxxxxxxxxxx]")));
+        tickets.cancel(true);
+
+        assertTrue(request.isCancelled());
+    }
+}
@@ -0,0 +1,206 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushNotificationSchedulerTest {
+    private static final Pattern RECIPIENT = Pattern.compile("ExponentPushToken\\[([^\\]]*)\\]");
+
+    private final AtomicLong now = new AtomicLong(1_600_000_000_000L);
+    private final List<List<String>> chunks = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<String> held = new CompletableFuture<>();
+
+    /**
+     * A client whose first request is held until {@link #_release()}, so messages pile up behind it. Requests
+     * for the recipient {@code fail} fail.
+     */
+    private PushClient _client() {
+        PushClient client = new PushClient((URL url, String json) -> {
+            List<String> recipients = new ArrayList<>();
+            Matcher matcher = RECIPIENT.matcher(json);
+            while (matcher.find())
+                recipients.add(matcher.group(1));
+            chunks.add(recipients);
+            String tickets = "{\"data\":[" + String.join(",",
+                    Collections.nCopies(recipients.size(), "{\"status\":\"ok\",\"id\":\"t\"}")) + "]}";
+            if (chunks.size() == 1)
+                return held.thenApply(v -> tickets);
+            CompletableFuture<String> response = new CompletableFuture<>();
+            if (recipients.contains("fail"))
+                response.completeExceptionally(new PushServerException(503, null, null));
+            else
+                response.complete(tickets);
+            return response;
+        });
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        return client;
+    }
+
+    private void _release() {
+        held.complete("");
+    }
+
+    private static ExpoPushMessage _message(String recipient, String priority) {
+        ExpoPushMessage message = new ExpoPushMessage("ExponentPushToken[" + recipient + "]");
+        message.setPriority(priority);
+        return message;
+    }
+
+    private PushNotificationScheduler _scheduler(PushClient client, PushSchedulerListener listener) {
+        return new PushNotificationScheduler(client, 1, Executors.newSingleThreadScheduledExecutor(), true,
+                listener, now::get);
+    }
+
+    @Test
+    void interleavesPrioritiesByWeight() throws Exception {
+        CountDownLatch results = new CountDownLatch(61);
+        try (PushNotificationScheduler scheduler = _scheduler(_client(), result -> results.countDown())) {
+            scheduler.submit(_message("first", "normal"));
+            for (int i = 0; i < 20; i++) {
+                scheduler.submit(_message("n" + i, "normal"));
+                scheduler.submit(_message("d" + i, null));
+                scheduler.submit(_message("h" + i, "high"));
+            }
+            assertEquals(20, scheduler.getQueuedCount(PushNotificationScheduler.Priority.HIGH));
+            _release();
+            assertTrue(results.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(Collections.singletonList("first"), chunks.get(0));
+        List<String> order = chunks.get(1);
+        assertEquals(60, order.size());
+        for (int i = 0; i < 8; i++)
+            assertEquals("h" + i, order.get(i));
+        for (int i = 0; i < 4; i++)
+            assertEquals("d" + i, order.get(8 + i));
+        assertEquals("n0", order.get(12));
+        assertEquals("h8", order.get(13));
+    }
+
+    @Test
+    void dropsExpiredMessagesBeforeSending() throws Exception {
+        List<ExpoPushMessage> expired = new CopyOnWriteArrayList<>();
+        CountDownLatch results = new CountDownLatch(2);
+        PushSchedulerListener listener = new PushSchedulerListener() {
+            @Override
+            public void onResult(ExpoPushSendResult result) {
+                results.countDown();
+            }
+
+            @Override
+            public void onExpired(ExpoPushMessage message) {
+                expired.add(message);
+            }
+        };
+        try (PushNotificationScheduler scheduler = _scheduler(_client(), listener)) {
+            scheduler.submit(_message("first", null));
+            ExpoPushMessage shortTtl = _message("ttl", null);
+            shortTtl.setTtl(10);
+            ExpoPushMessage pastExpiration = _message("expiration", null);
+            pastExpiration.setExpiration(TimeUnit.MILLISECONDS.toSeconds(now.get()) + 5);
+            ExpoPushMessage longTtl = _message("alive", null);
+            longTtl.setTtl(60);
+            scheduler.submit(shortTtl);
+            scheduler.submit(pastExpiration);
+            scheduler.submit(longTtl);
+
+            now.addAndGet(TimeUnit.SECONDS.toMillis(11));
+            _release();
+            assertTrue(results.await(5, TimeUnit.SECONDS));
+            assertEquals(2, scheduler.getExpiredCount());
+        }
+        assertEquals(2, expired.size());
+        assertEquals(Collections.singletonList("alive"), chunks.get(1));
+    }
+
+    @Test
+    void reportsWhatAFailedBulkSendDidNotSend() throws Exception {
+        CompletableFuture<List<ExpoPushMessage>> unsent = new CompletableFuture<>();
+        PushSchedulerListener listener = new PushSchedulerListener() {
+            @Override
+            public void onResult(ExpoPushSendResult result) {
+            }
+
+            @Override
+            public void onError(List<ExpoPushMessage> messages, Throwable error) {
+                unsent.complete(messages);
+            }
+        };
+        List<String> to = new ArrayList<>();
+        for (int i = 0; i < 150; i++)
+            to.add("ExponentPushToken[" + (i == 120 ? "fail" : "r" + i) + "]");
+        try (PushNotificationScheduler scheduler = _scheduler(_client(), listener)) {
+            scheduler.submit(_message("first", null));
+            scheduler.submit(new ExpoPushMessage(to));
+            scheduler.submit(_message("later", null));
+            _release();
+
+            List<ExpoPushMessage> messages = unsent.get(5, TimeUnit.SECONDS);
+            assertEquals(2, messages.size());
+            // The broadcast is left with the recipients of the failed chunk, the message after it was in that chunk.
+            assertEquals(to.subList(100, 150), messages.get(0).to);
+            assertEquals(Collections.singletonList("ExponentPushToken[later]"), messages.get(1).to);
+        }
+        assertEquals(3, chunks.size());
+    }
+
+    @Test
+    void takesNoMoreMessagesOnceClosed() throws Exception {
+        CountDownLatch results = new CountDownLatch(1);
+        PushNotificationScheduler scheduler = _scheduler(_client(), result -> results.countDown());
+        scheduler.submit(_message("first", null));
+        for (int i = 0; i < 5; i++)
+            scheduler.submit(_message("queued" + i, "high"));
+        scheduler.close();
+        _release();
+
+        assertTrue(results.await(5, TimeUnit.SECONDS));
+        assertEquals(1, chunks.size());
+        assertEquals(5, scheduler.getQueuedCount(PushNotificationScheduler.Priority.HIGH));
+    }
+
+    @Test
+    void keepsSendingWhenTheListenerThrows() throws Exception {
+        CountDownLatch results = new CountDownLatch(3);
+        PushSchedulerListener listener = result -> {
+            results.countDown();
+            throw new IllegalStateException("listener failed");
+        };
+        try (PushNotificationScheduler scheduler = _scheduler(_client(), listener)) {
+            scheduler.submit(_message("first", null));
+            scheduler.submit(_message("second", null));
+            scheduler.submit(_message("third", null));
+            _release();
+            assertTrue(results.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, chunks.size());
+    }
+
+    @Test
+    void readsPrioritiesWhateverTheLocale() {
+        ExpoPushMessage message = _message("a", "HIGH");
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals(PushNotificationScheduler.Priority.HIGH, PushNotificationScheduler.Priority.of(message));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
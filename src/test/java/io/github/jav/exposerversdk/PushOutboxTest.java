@@ -0,0 +1,215 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushOutboxTest {
+    @TempDir
+    Path directory;
+
+    private static ByteBuffer _body(String json) {
+        return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String _string(ByteBuffer body) {
+        return StandardCharsets.UTF_8.decode(body).toString();
+    }
+
+    @Test
+    void recoversChunksThatWereNotAcknowledged() throws Exception {
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            assertTrue(outbox.getRecoveredChunks().isEmpty());
+            long first = outbox.append(_body("[1]")).get(5, TimeUnit.SECONDS);
+            long second = outbox.append(_body("[2]")).get(5, TimeUnit.SECONDS);
+            outbox.append(_body("[3]")).get(5, TimeUnit.SECONDS);
+            outbox.ack(second);
+            assertEquals(2, outbox.getPendingCount());
+            assertEquals(1, first);
+        }
+
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            List<PushOutbox.PendingChunk> recovered = outbox.getRecoveredChunks();
+            assertEquals(2, recovered.size());
+            assertEquals(1, recovered.get(0).getSequence());
+            assertEquals("[1]", _string(recovered.get(0).getBody()));
+            assertEquals("[3]", _string(recovered.get(1).getBody()));
+            // Sequence numbers continue after the recovered ones.
+            assertEquals(4, (long) outbox.append(_body("[4]")).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void ignoresATornRecordAndWhatFollows() throws Exception {
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            outbox.append(_body("[\"intact\"]")).get(5, TimeUnit.SECONDS);
+            outbox.append(_body("[\"torn\"]")).get(5, TimeUnit.SECONDS);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.collect(Collectors.toList()).get(0);
+        }
+        // Flip a byte in the payload of the second record: 13 header bytes, 10 payload and 4 CRC bytes before it.
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 27 + 13 + 2);
+        }
+
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            assertEquals(1, outbox.getRecoveredChunks().size());
+            assertEquals("[\"intact\"]", _string(outbox.getRecoveredChunks().get(0).getBody()));
+            outbox.append(_body("[\"after\"]")).get(5, TimeUnit.SECONDS);
+        }
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            assertEquals(2, outbox.getRecoveredChunks().size());
+            assertEquals("[\"after\"]", _string(outbox.getRecoveredChunks().get(1).getBody()));
+        }
+    }
+
+    @Test
+    void deletesSegmentsOnceTheirChunksAreAcknowledged() throws Exception {
+        try (PushOutbox outbox = PushOutbox.open(directory, 128)) {
+            List<CompletableFuture<Long>> appended = new ArrayList<>();
+            for (int i = 0; i < 50; i++)
+                appended.add(outbox.append(_body("[\"chunk " + i + "\"]")));
+            for (CompletableFuture<Long> sequence : appended)
+                outbox.ack(sequence.get(5, TimeUnit.SECONDS));
+            assertEquals(0, outbox.getPendingCount());
+            assertEquals(1, outbox.getSegmentCount());
+        }
+        try (PushOutbox outbox = PushOutbox.open(directory, 128)) {
+            assertTrue(outbox.getRecoveredChunks().isEmpty());
+        }
+    }
+
+    @Test
+    void clientReplaysWhatWasNotAnswered() throws Exception {
+        PushClient failing = new PushClient((URL url, String json) -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new IOException("connection reset"));
+            return future;
+        });
+        failing.setBaseApiUrl(URI.create("http://localhost"));
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            failing.setOutbox(outbox);
+            assertThrows(ExecutionException.class, () -> failing.sendPushNotificationsAsync(Collections.singletonList(
+                    new ExpoPushMessage("ExponentPushToken[a]"))).get(5, TimeUnit.SECONDS));
+            assertEquals(1, outbox.getPendingCount());
+        }
+
+        List<String> sent = new ArrayList<>();
+        PushClient client = new PushClient((URL url, String json) -> {
+            sent.add(json);
+            return CompletableFuture.completedFuture("{\"data\":[{\"status\":\"ok\",\"id\":\"a\"}]}");
+        });
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            client.setOutbox(outbox);
+            List<ExpoPushTicket> tickets = client.replayOutboxAsync().get(5, TimeUnit.SECONDS);
+            assertEquals(1, tickets.size());
+            assertTrue(sent.get(0).contains("ExponentPushToken[a]"));
+            assertEquals(0, outbox.getPendingCount());
+
+            client.sendPushNotificationsAsync(Collections.singletonList(new ExpoPushMessage("ExponentPushToken[b]")))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(0, outbox.getPendingCount());
+        }
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            assertTrue(outbox.getRecoveredChunks().isEmpty());
+        }
+    }
+
+    @Test
+    void claimsEachPendingChunkOnce() throws Exception {
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            long sent = outbox.append(_body("[1]")).get(5, TimeUnit.SECONDS);
+            long failed = outbox.append(_body("[2]")).get(5, TimeUnit.SECONDS);
+            assertTrue(outbox.claimPendingChunks().isEmpty());
+
+            outbox.ack(sent);
+            outbox.release(failed);
+            List<PushOutbox.PendingChunk> claimed = outbox.claimPendingChunks();
+            assertEquals(1, claimed.size());
+            assertEquals("[2]", _string(claimed.get(0).getBody()));
+            assertTrue(outbox.claimPendingChunks().isEmpty());
+        }
+    }
+
+    @Test
+    void clientAcksRejectedChunksAndReplaysFailedOnesOnce() throws Exception {
+        List<String> sent = new ArrayList<>();
+        List<Integer> statuses = new ArrayList<>(Arrays.asList(503, 400, 200));
+        PushClient client = new PushClient((URL url, String json) -> {
+            sent.add(json);
+            int status = statuses.isEmpty() ? 200 : statuses.remove(0);
+            CompletableFuture<String> future = new CompletableFuture<>();
+            if (status == 200)
+                future.complete("{\"data\":[{\"status\":\"ok\",\"id\":\"a\"}]}");
+            else
+                future.completeExceptionally(new PushServerException(status, null, null));
+            return future;
+        });
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            client.setOutbox(outbox);
+            for (String token : new String[]{"ExponentPushToken[a]", "ExponentPushToken[b]"})
+                assertThrows(ExecutionException.class, () -> client.sendPushNotificationsAsync(Collections.singletonList(
+                        new ExpoPushMessage(token))).get(5, TimeUnit.SECONDS));
+            // The throttled chunk stays, the rejected one would be rejected again.
+            assertEquals(1, outbox.getPendingCount());
+
+            assertEquals(1, client.replayOutboxAsync().get(5, TimeUnit.SECONDS).size());
+            assertTrue(sent.get(2).contains("ExponentPushToken[a]"));
+            assertEquals(0, outbox.getPendingCount());
+            assertTrue(client.replayOutboxAsync().get(5, TimeUnit.SECONDS).isEmpty());
+            assertEquals(3, sent.size());
+        }
+    }
+
+    @Test
+    void replaysACancelledSend() throws Exception {
+        AtomicBoolean answering = new AtomicBoolean();
+        PushClient client = new PushClient((URL url, String json) -> {
+            if (!answering.get())
+                return new CompletableFuture<>();
+            return CompletableFuture.completedFuture("{\"data\":[{\"status\":\"ok\",\"id\":\"a\"}]}");
+        });
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        try (PushOutbox outbox = PushOutbox.open(directory)) {
+            client.setOutbox(outbox);
+            // Likely before the chunk is on disk.
+            client.sendPushNotificationsAsync(Collections.singletonList(new ExpoPushMessage("ExponentPushToken[a]")))
+                    .cancel(true);
+            answering.set(true);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            int replayed = 0;
+            while (replayed == 0 && System.nanoTime() < deadline) {
+                replayed = client.replayOutboxAsync().get(5, TimeUnit.SECONDS).size();
+                Thread.sleep(10);
+            }
+            assertEquals(1, replayed);
+            assertEquals(0, outbox.getPendingCount());
+        }
+    }
+}
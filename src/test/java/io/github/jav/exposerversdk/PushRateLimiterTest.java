@@ -0,0 +1,83 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushRateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstThenSpacesRequests() {
+        AtomicLong clock = new AtomicLong(1000);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (PushRateLimiter limiter = new PushRateLimiter(4, 1000, scheduler, true, clock::get)) {
+            for (int i = 0; i < 4; i++)
+                assertTrue(limiter.reserve(1) <= 0);
+            assertEquals(SECOND / 4, limiter.reserve(1));
+            assertEquals(2 * SECOND / 4, limiter.reserve(1));
+
+            clock.addAndGet(10 * SECOND);
+            assertTrue(limiter.reserve(1) <= 0);
+        }
+    }
+
+    @Test
+    void limitsNotificationsSeparatelyFromRequests() {
+        AtomicLong clock = new AtomicLong(0);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (PushRateLimiter limiter = new PushRateLimiter(1000, 100, scheduler, true, clock::get)) {
+            assertTrue(limiter.reserve(100) <= 0);
+            assertEquals(SECOND / 2, limiter.reserve(50));
+            // Receipt requests carry no notifications and are only limited by the request rate.
+            assertTrue(limiter.reserve(0) <= 0);
+        }
+    }
+
+    @Test
+    void delaysFuturesInsteadOfBlocking() throws Exception {
+        AtomicLong clock = new AtomicLong(0);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (PushRateLimiter limiter = new PushRateLimiter(1, 1000, scheduler, true, clock::get)) {
+            assertTrue(limiter.acquireAsync(1).isDone());
+            CompletableFuture<Void> delayed = limiter.acquireAsync(1);
+            assertFalse(delayed.isDone());
+            delayed.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void clientsShareALimiter() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        PushServerResolver resolver = (URL url, String json) -> {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture("{\"data\":[{\"status\":\"ok\",\"id\":\"a\"}]}");
+        };
+        try (PushRateLimiter limiter = new PushRateLimiter(1, 1000)) {
+            PushClient first = new PushClient(resolver);
+            PushClient second = new PushClient(resolver);
+            first.setRateLimiter(limiter);
+            second.setRateLimiter(limiter);
+            first.setBaseApiUrl(URI.create("http://localhost"));
+            second.setBaseApiUrl(URI.create("http://localhost"));
+
+            List<ExpoPushMessage> chunk = Arrays.asList(new ExpoPushMessage("ExponentPushToken[xxxxxxxxxxxxxxxxxxxxxx]"));
+            assertEquals(1, first.sendPushNotificationsAsync(chunk).get(5, TimeUnit.SECONDS).size());
+            CompletableFuture<List<ExpoPushTicket>> throttled = second.sendPushNotificationsAsync(chunk);
+            assertEquals(1, requests.get());
+            assertEquals(1, throttled.get(5, TimeUnit.SECONDS).size());
+            assertEquals(2, requests.get());
+        }
+    }
+}
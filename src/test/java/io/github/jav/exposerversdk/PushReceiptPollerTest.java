@@ -0,0 +1,206 @@
+package io.github.jav.exposerversdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushReceiptPollerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void pollsInBatchesAndRetriesIdsWithoutReceipts() throws Exception {
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < 650; i++) {
+            ticketIds.add(String.format("2011eb6d-d4d3-440c-a93c-%012x", i));
+        }
+        ticketIds.add("not-a-uuid");
+
+        Set<String> polledOnce = ConcurrentHashMap.newKeySet();
+        List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<>());
+        PushClient client = new PushClient((url, json) -> {
+            ObjectNode data = MAPPER.createObjectNode();
+            JsonNode ids = _readTree(json).get("ids");
+            requestSizes.add(ids.size());
+            for (JsonNode id : ids) {
+                // Every other receipt is only ready on the second poll.
+                if (!polledOnce.add(id.asText()) || id.asText().hashCode() % 2 == 0)
+                    data.putObject(id.asText()).put("status", "ok");
+            }
+            return CompletableFuture.completedFuture(MAPPER.createObjectNode().set("data", data).toString());
+        });
+
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(ticketIds.size());
+        try (PushReceiptPoller poller = new PushReceiptPoller(client, receipt -> {
+            assertTrue(received.add(receipt.id));
+            done.countDown();
+        })) {
+            poller.setInitialDelay(Duration.ofMillis(10));
+            poller.setRetryDelay(Duration.ofMillis(10));
+            poller.setBatchWindow(Duration.ofMillis(10));
+            ticketIds.forEach(poller::add);
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(0, poller.getPendingCount());
+        }
+        assertEquals(ticketIds.size(), received.size());
+        assertTrue(received.containsAll(ticketIds));
+        for (int size : requestSizes) {
+            assertTrue(size <= PushClient.PUSH_NOTIFICATION_RECEIPT_CHUNK_LIMIT);
+        }
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        PushClient client = new PushClient((url, json) -> {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture("{\"data\":{}}");
+        });
+
+        CountDownLatch unresolved = new CountDownLatch(1);
+        try (PushReceiptPoller poller = new PushReceiptPoller(client, new PushReceiptListener() {
+            @Override
+            public void onReceipt(ExpoPushReceiept receipt) {
+                fail("No receipt expected");
+            }
+
+            @Override
+            public void onUnresolved(String ticketId) {
+                assertEquals("2011eb6d-d4d3-440c-a93c-37ac4b51ea09", ticketId);
+                unresolved.countDown();
+            }
+        })) {
+            poller.setInitialDelay(Duration.ofMillis(1));
+            poller.setRetryDelay(Duration.ofMillis(1));
+            poller.setBatchWindow(Duration.ofMillis(1));
+            poller.setMaxAttempts(3);
+            poller.add("2011eb6d-d4d3-440c-a93c-37ac4b51ea09");
+
+            assertTrue(unresolved.await(10, TimeUnit.SECONDS));
+            assertEquals(3, requests.get());
+            assertEquals(0, poller.getPendingCount());
+        }
+    }
+
+    @Test
+    void keepsPollingWhenTheListenerThrows() throws Exception {
+        String first = "2011eb6d-d4d3-440c-a93c-37ac4b51ea09";
+        String second = "ffffffff-ffff-ffff-ffff-ffffffffffff";
+        AtomicInteger requests = new AtomicInteger();
+        PushClient client = new PushClient((url, json) -> CompletableFuture.completedFuture(
+                requests.incrementAndGet() == 1
+                        ? "{\"data\":{\"" + first + "\":{\"status\":\"ok\"}}}"
+                        : "{\"data\":{\"" + second + "\":{\"status\":\"ok\"}}}"));
+
+        CountDownLatch received = new CountDownLatch(1);
+        try (PushReceiptPoller poller = new PushReceiptPoller(client, receipt -> {
+            if (receipt.id.equals(first))
+                throw new IllegalStateException("listener failure");
+            received.countDown();
+        })) {
+            poller.setInitialDelay(Duration.ofMillis(1));
+            poller.setRetryDelay(Duration.ofMillis(1));
+            poller.setBatchWindow(Duration.ofMillis(1));
+            poller.add(first);
+            poller.add(second);
+
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+            assertEquals(0, poller.getPendingCount());
+        }
+    }
+
+    @Test
+    void stopsPollingOnASharedSchedulerWhenClosed() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        PushClient client = new PushClient((url, json) -> {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture("{\"data\":{}}");
+        });
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            PushReceiptPoller poller = new PushReceiptPoller(client, scheduler, receipt -> fail("No receipt expected"));
+            poller.setInitialDelay(Duration.ofMillis(50));
+            poller.add("2011eb6d-d4d3-440c-a93c-37ac4b51ea09");
+            poller.flush();
+            poller.close();
+
+            scheduler.schedule(() -> null, 200, TimeUnit.MILLISECONDS).get();
+            assertEquals(0, requests.get());
+            assertEquals(0, poller.getPendingCount());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void dropsPendingIdsAndRejectsNewOnesWhenClosed() {
+        PushClient client = new PushClient((url, json) -> CompletableFuture.completedFuture("{\"data\":{}}"));
+        PushReceiptPoller poller = new PushReceiptPoller(client, receipt -> fail("No receipt expected"));
+        poller.add("2011eb6d-d4d3-440c-a93c-37ac4b51ea09");
+        assertEquals(1, poller.getPendingCount());
+
+        poller.close();
+
+        assertEquals(0, poller.getPendingCount());
+        assertThrows(IllegalStateException.class, () -> poller.add("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+        assertEquals(0, poller.getPendingCount());
+    }
+
+    @Test
+    void countsAnIdAddedTwiceUntilItsReceiptArrives() throws Exception {
+        String ticketId = "2011eb6d-d4d3-440c-a93c-37ac4b51ea09";
+        PushClient client = new PushClient((url, json) -> CompletableFuture.completedFuture(
+                "{\"data\":{\"" + ticketId + "\":{\"status\":\"ok\"}}}"));
+
+        CountDownLatch received = new CountDownLatch(1);
+        try (PushReceiptPoller poller = new PushReceiptPoller(client, receipt -> received.countDown())) {
+            poller.setInitialDelay(Duration.ofMillis(1));
+            poller.add(ticketId);
+            poller.add(ticketId);
+            assertEquals(2, poller.getPendingCount());
+            poller.flush();
+
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+            assertEquals(0, poller.getPendingCount());
+        }
+    }
+
+    @Test
+    void packsUuidsLosslessly() {
+        ReceiptIdBatch batch = new ReceiptIdBatch(0);
+        batch.add("2011eb6d-d4d3-440c-a93c-37ac4b51ea09");
+        batch.add("ffffffff-ffff-ffff-ffff-ffffffffffff");
+        batch.add("2011EB6D-D4D3-440C-A93C-37AC4B51EA09");
+        assertEquals(3, batch.size());
+        assertEquals(Arrays.asList("2011eb6d-d4d3-440c-a93c-37ac4b51ea09",
+                "ffffffff-ffff-ffff-ffff-ffffffffffff", "2011EB6D-D4D3-440C-A93C-37AC4B51EA09"), batch.toIdList());
+    }
+
+    private static JsonNode _readTree(String json) {
+        try {
+            return MAPPER.readTree(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
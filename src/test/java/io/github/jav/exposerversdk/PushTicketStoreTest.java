@@ -0,0 +1,165 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushTicketStoreTest {
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private PushTicketStore _store(Path file, int capacity) throws Exception {
+        return new PushTicketStore(file, capacity, now::get, null);
+    }
+
+    @Test
+    void putGetAndRemove() throws Exception {
+        try (PushTicketStore store = _store(null, 16)) {
+            String id = UUID.randomUUID().toString();
+            assertEquals(PushTicketStore.NO_KEY, store.get(id));
+            store.put(id, 42);
+            store.put("not-a-uuid", 7);
+            assertEquals(42, store.get(id));
+            assertEquals(7, store.get("not-a-uuid"));
+            store.put(id, 43);
+            assertEquals(2, store.size());
+            assertEquals(43, store.remove(id));
+            assertEquals(PushTicketStore.NO_KEY, store.get(id));
+            assertEquals(1, store.size());
+            store.put(id, 44);
+            assertEquals(44, store.get(id));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void entriesExpire() throws Exception {
+        try (PushTicketStore store = _store(null, 16)) {
+            store.setTtl(Duration.ofMinutes(10));
+            store.put("a", 1);
+            store.put("b", 2, Duration.ofHours(1));
+            now.addAndGet(Duration.ofMinutes(11).toMillis());
+            assertEquals(PushTicketStore.NO_KEY, store.get("a"));
+            assertEquals(2, store.get("b"));
+
+            store.compact();
+            assertEquals(1, store.size());
+            assertEquals(2, store.get("b"));
+        }
+    }
+
+    @Test
+    void growsAndShrinks() throws Exception {
+        try (PushTicketStore store = _store(null, 16)) {
+            String[] ids = new String[10_000];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = UUID.randomUUID().toString();
+                store.put(ids[i], i);
+            }
+            assertEquals(ids.length, store.size());
+            assertTrue(store.getCapacity() >= ids.length);
+            for (int i = 0; i < ids.length; i++)
+                assertEquals(i, store.get(ids[i]));
+
+            for (int i = 100; i < ids.length; i++)
+                store.remove(ids[i]);
+            store.compact();
+            assertEquals(256, store.getCapacity());
+            for (int i = 0; i < 100; i++)
+                assertEquals(i, store.get(ids[i]));
+        }
+    }
+
+    @Test
+    void backgroundCompactionKeepsConcurrentWrites() throws Exception {
+        Path file = directory.resolve("tickets.idx");
+        try (PushTicketStore store = _store(file, 16)) {
+            String[] old = new String[20_000];
+            for (int i = 0; i < old.length; i++) {
+                old[i] = UUID.randomUUID().toString();
+                store.put(old[i], i, i < 100 ? Duration.ofHours(1) : Duration.ofMinutes(1));
+            }
+            now.addAndGet(Duration.ofMinutes(2).toMillis());
+
+            String[] added = new String[5_000];
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < added.length; i++) {
+                    added[i] = UUID.randomUUID().toString();
+                    store.put(added[i], i);
+                    if (i % 2 == 0)
+                        store.remove(old[i % 100]);
+                }
+            });
+            writer.start();
+            while (writer.isAlive())
+                store._compactIfNeeded();
+            writer.join();
+            store._compactIfNeeded();
+
+            assertTrue(store.getCapacity() <= 16_384);
+            for (int i = 0; i < added.length; i++)
+                assertEquals(i, store.get(added[i]));
+            for (int i = 0; i < 100; i++)
+                assertEquals(i % 2 == 0 ? PushTicketStore.NO_KEY : i, store.get(old[i]));
+            assertEquals(PushTicketStore.NO_KEY, store.get(old[100]));
+            assertEquals(added.length + 50, store.size());
+        }
+    }
+
+    @Test
+    void survivesReopening() throws Exception {
+        Path file = directory.resolve("tickets.idx");
+        String[] ids = new String[1000];
+        try (PushTicketStore store = _store(file, 16)) {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = UUID.randomUUID().toString();
+                store.put(ids[i], i);
+            }
+            store.remove(ids[0]);
+        }
+        try (PushTicketStore store = _store(file, 16)) {
+            assertEquals(ids.length - 1, store.size());
+            assertEquals(PushTicketStore.NO_KEY, store.get(ids[0]));
+            assertEquals(999, store.get(ids[999]));
+            store.compact();
+            assertEquals(500, store.get(ids[500]));
+        }
+        try (PushTicketStore store = _store(file, 16)) {
+            assertEquals(ids.length - 1, store.size());
+            assertEquals(1, store.get(ids[1]));
+        }
+    }
+
+    @Test
+    void clientFillsInCorrelationKeys() throws Exception {
+        String ok = UUID.randomUUID().toString();
+        String unknown = UUID.randomUUID().toString();
+        PushClient client = new PushClient((URL url, String json) -> CompletableFuture.completedFuture(
+                "{\"data\":{\"" + ok + "\":{\"status\":\"ok\"},\"" + unknown + "\":{\"status\":\"ok\"}}}"));
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        try (PushTicketStore store = _store(null, 16)) {
+            store.put(ok, 1234);
+            client.setTicketStore(store);
+
+            List<ExpoPushReceiept> receipts = client.getPushNotificationReceiptsAsync(Arrays.asList(ok, unknown))
+                    .get(5, TimeUnit.SECONDS);
+            for (ExpoPushReceiept receipt : receipts)
+                assertEquals(receipt.id.equals(ok) ? 1234 : PushTicketStore.NO_KEY, receipt.getCorrelationKey());
+            assertEquals(0, store.size());
+        }
+    }
+}
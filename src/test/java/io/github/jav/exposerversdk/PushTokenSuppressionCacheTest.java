@@ -0,0 +1,94 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PushTokenSuppressionCacheTest {
+    private static final String DEAD = "ExponentPushToken[dead]";
+    private static final String ALIVE = "ExponentPushToken[alive]";
+
+    @Test
+    void suppressesForATimeAndEvictsTheOldest() {
+        AtomicLong now = new AtomicLong();
+        PushTokenSuppressionCache cache = new PushTokenSuppressionCache(2, Duration.ofMinutes(1), now::get);
+        List<String> exported = new ArrayList<>();
+        cache.setListener((token, error) -> exported.add(token));
+
+        assertTrue(cache.suppress("a", PushTokenSuppressionCache.DEVICE_NOT_REGISTERED));
+        assertFalse(cache.suppress("a", PushTokenSuppressionCache.DEVICE_NOT_REGISTERED));
+        cache.suppress("b", PushTokenSuppressionCache.DEVICE_NOT_REGISTERED);
+        cache.suppress("c", PushTokenSuppressionCache.DEVICE_NOT_REGISTERED);
+        assertFalse(cache.isSuppressed("a"));
+        assertTrue(cache.isSuppressed("b"));
+        assertEquals(2, cache.size());
+        assertEquals(Arrays.asList("a", "b", "c"), exported);
+
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertFalse(cache.isSuppressed("b"));
+        assertTrue(cache.suppress("c", PushTokenSuppressionCache.DEVICE_NOT_REGISTERED));
+        assertTrue(cache.unsuppress("c"));
+        assertFalse(cache.isSuppressed("c"));
+    }
+
+    @Test
+    void learnsFromTicketsAndReceiptsAndFiltersBulkSends() throws Exception {
+        List<String> requests = new ArrayList<>();
+        PushClient client = new PushClient((URL url, String json) -> {
+            requests.add(json);
+            if (url.getPath().endsWith("/getReceipts"))
+                return CompletableFuture.completedFuture("{\"data\":{\"r1\":{\"status\":\"error\",\"message\":\"gone\","
+                        + "\"details\":{\"error\":\"DeviceNotRegistered\",\"expoPushToken\":\"ExponentPushToken[late]\"}}}}");
+            String ticket = json.contains(DEAD)
+                    ? "{\"status\":\"error\",\"message\":\"gone\",\"details\":{\"error\":\"DeviceNotRegistered\"}}"
+                    : "{\"status\":\"ok\",\"id\":\"t\"}";
+            return CompletableFuture.completedFuture("{\"data\":[" + ticket + "]}");
+        });
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        PushTokenSuppressionCache cache = new PushTokenSuppressionCache();
+        client.setSuppressionCache(cache);
+
+        client.sendPushNotificationsAsync(Collections.singletonList(new ExpoPushMessage(DEAD))).get(5, TimeUnit.SECONDS);
+        assertTrue(cache.isSuppressed(DEAD));
+        client.getPushNotificationReceiptsAsync(Collections.singletonList("r1")).get(5, TimeUnit.SECONDS);
+        assertTrue(cache.isSuppressed("ExponentPushToken[late]"));
+
+        requests.clear();
+        List<ExpoPushSendResult> results = client.sendPushNotificationsBulkAsync(Arrays.asList(
+                new ExpoPushMessage(Arrays.asList(DEAD, ALIVE, "ExponentPushToken[late]")),
+                new ExpoPushMessage(DEAD)), 2).get(5, TimeUnit.SECONDS);
+        assertEquals(1, requests.size());
+        assertFalse(requests.get(0).contains(DEAD));
+        assertEquals(Collections.singletonList(ALIVE),
+                results.stream().map(ExpoPushSendResult::getRecipient).collect(Collectors.toList()));
+    }
+
+    @Test
+    void aFailingListenerDoesNotFailTheSend() throws Exception {
+        PushClient client = new PushClient((URL url, String json) -> CompletableFuture.completedFuture(
+                "{\"data\":[{\"status\":\"error\",\"message\":\"gone\",\"details\":{\"error\":\"DeviceNotRegistered\"}}]}"));
+        client.setBaseApiUrl(URI.create("http://localhost"));
+        PushTokenSuppressionCache cache = new PushTokenSuppressionCache();
+        cache.setListener((token, error) -> {
+            throw new IllegalStateException("export failed");
+        });
+        client.setSuppressionCache(cache);
+
+        List<ExpoPushTicket> tickets = client.sendPushNotificationsAsync(Collections.singletonList(
+                new ExpoPushMessage(DEAD))).get(5, TimeUnit.SECONDS);
+        assertEquals(1, tickets.size());
+        assertTrue(cache.isSuppressed(DEAD));
+    }
+}
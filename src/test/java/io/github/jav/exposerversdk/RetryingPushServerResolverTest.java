@@ -0,0 +1,120 @@
+package io.github.jav.exposerversdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryingPushServerResolverTest {
+    private static <T> CompletableFuture<T> _failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    @Test
+    void retriesThrottledAndFailingRequests() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PushServerResolver flaky = (url, json) -> {
+            switch (calls.incrementAndGet()) {
+                case 1:
+                    return _failed(new PushServerException(429, null, null));
+                case 2:
+                    return _failed(new PushServerException(503, null, null));
+                default:
+                    return CompletableFuture.completedFuture("{\"data\":[]}");
+            }
+        };
+        try (RetryingPushServerResolver resolver = new RetryingPushServerResolver(flaky)) {
+            resolver.setInitialBackoff(Duration.ofMillis(1));
+            assertEquals("{\"data\":[]}", resolver.postAsync(new URL("http://localhost/"), "[]").get(10, TimeUnit.SECONDS));
+            assertEquals(3, calls.get());
+        }
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PushServerResolver failing = (url, json) -> {
+            calls.incrementAndGet();
+            return _failed(new ConnectException());
+        };
+        try (RetryingPushServerResolver resolver = new RetryingPushServerResolver(failing)) {
+            resolver.setInitialBackoff(Duration.ofMillis(1));
+            resolver.setMaxAttempts(3);
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> resolver.postAsync(new URL("http://localhost/"), "[]").get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof ConnectException);
+            assertEquals(3, calls.get());
+        }
+    }
+
+    @Test
+    void doesNotRetryClientErrors() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PushServerResolver failing = (url, json) -> {
+            calls.incrementAndGet();
+            return _failed(new PushServerException(400, null, "{}"));
+        };
+        try (RetryingPushServerResolver resolver = new RetryingPushServerResolver(failing)) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> resolver.postAsync(new URL("http://localhost/"), "[]").get(10, TimeUnit.SECONDS));
+            assertEquals(400, ((PushServerException) e.getCause()).getStatusCode());
+            assertEquals(1, calls.get());
+        }
+    }
+
+    @Test
+    void retryDelayHonoursRetryAfterAndBackoff() throws Exception {
+        try (RetryingPushServerResolver resolver = new RetryingPushServerResolver((url, json) -> null)) {
+            resolver.setInitialBackoff(Duration.ofMillis(100));
+            resolver.setMaxBackoff(Duration.ofSeconds(10));
+
+            assertEquals(Duration.ofSeconds(5), resolver._retryDelay(1, new PushServerException(429, Duration.ofSeconds(5), null)));
+            assertNull(resolver._retryDelay(1, new PushServerException(429, Duration.ofMinutes(5), null)));
+            assertNull(resolver._retryDelay(1, new SocketTimeoutException()));
+            for (int i = 0; i < 100; i++) {
+                Duration delay = resolver._retryDelay(3, new PushServerException(502, null, null));
+                assertFalse(delay.isNegative());
+                assertTrue(delay.compareTo(Duration.ofMillis(400)) <= 0);
+                assertTrue(resolver._retryDelay(20, new ConnectException()).compareTo(Duration.ofSeconds(10)) <= 0);
+            }
+        }
+    }
+
+    @Test
+    void closeWrapsCheckedExceptionsOfTheWrappedResolver() {
+        class FailingToClose implements PushServerResolver, AutoCloseable {
+            @Override
+            public CompletableFuture<String> postAsync(URL url, String json) {
+                return CompletableFuture.completedFuture("{}");
+            }
+
+            @Override
+            public void close() throws Exception {
+                throw new Exception("close failure");
+            }
+        }
+        RetryingPushServerResolver resolver = new RetryingPushServerResolver(new FailingToClose());
+
+        IOException e = assertThrows(IOException.class, resolver::close);
+        assertEquals("close failure", e.getCause().getMessage());
+    }
+
+    @Test
+    void parsesRetryAfterHeaders() {
+        assertEquals(Duration.ofSeconds(120), PushServerException.parseRetryAfter(" 120 "));
+        assertNull(PushServerException.parseRetryAfter(null));
+        assertNull(PushServerException.parseRetryAfter("soon"));
+        assertEquals(Duration.ZERO, PushServerException.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.jav.exposerversdk;
+
+class HttpClientPushServerResolverContractTest extends PushClientContractTest {
+    @Override
+    protected PushServerResolver _resolver() {
+        return new HttpClientPushServerResolver();
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.jav.exposerversdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientPushServerResolverTest {
+    private static final String RECEIPT_ID = "2011eb6d-d4d3-440c-a93c-37ac4b51ea09";
+
+    private HttpServer server;
+    private PushClient client;
+    private volatile String lastRequestBody;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/push/send", exchange -> {
+            lastRequestBody = readBody(exchange.getRequestBody());
+            respond(exchange, 200, "{\"data\":[{\"status\":\"ok\",\"id\":\"" + RECEIPT_ID + "\"}]}");
+        });
+        server.createContext("/push/getReceipts", exchange -> {
+            lastRequestBody = readBody(exchange.getRequestBody());
+            respond(exchange, 200, "{\"data\":{\"" + RECEIPT_ID + "\":{\"status\":\"error\",\"message\":\"gone\","
+                    + "\"details\":{\"error\":\"DeviceNotRegistered\"}}}}");
+        });
+        server.createContext("/gzip-echo", exchange -> {
+            InputStream in = exchange.getRequestBody();
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+                in = new GZIPInputStream(in);
+            lastRequestBody = readBody(in);
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = new GZIPOutputStream(exchange.getResponseBody())) {
+                os.write(lastRequestBody.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.createContext("/fail", exchange -> {
+            exchange.getResponseHeaders().add("Retry-After", "7");
+            respond(exchange, 503, "{}");
+        });
+        server.start();
+
+        client = new PushClient(new HttpClientPushServerResolver());
+        client.setBaseApiUrl(URI.create("http://127.0.0.1:" + server.getAddress().getPort()));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void sendsNotificationsAndParsesTickets() throws Exception {
+        List<ExpoPushTicket> tickets = client.sendPushNotificationsAsync(
+                Collections.singletonList(new ExpoPushMessage("ExpoPushToken[xxxxxxxxxxxxxxxxxxxxxx]")))
+                .get(10, TimeUnit.SECONDS);
+
+        assertTrue(lastRequestBody.contains("ExpoPushToken[xxxxxxxxxxxxxxxxxxxxxx]"));
+        assertEquals(1, tickets.size());
+        assertEquals("ok", tickets.get(0).getStatus());
+        assertEquals(RECEIPT_ID, tickets.get(0).id);
+    }
+
+    @Test
+    void getsReceipts() throws Exception {
+        List<ExpoPushReceiept> receipts = client.getPushNotificationReceiptsAsync(Collections.singletonList(RECEIPT_ID))
+                .get(10, TimeUnit.SECONDS);
+
+        assertTrue(lastRequestBody.contains(RECEIPT_ID));
+        assertEquals(1, receipts.size());
+        assertEquals(RECEIPT_ID, receipts.get(0).id);
+        assertEquals("DeviceNotRegistered", receipts.get(0).getDetails().getError());
+    }
+
+    @Test
+    void failsOnErrorStatus() throws Exception {
+        HttpClientPushServerResolver resolver = new HttpClientPushServerResolver();
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/fail");
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> resolver.postAsync(uri.toURL(), "{}").get(10, TimeUnit.SECONDS));
+        PushServerException cause = (PushServerException) e.getCause();
+        assertEquals(503, cause.getStatusCode());
+        assertEquals(Duration.ofSeconds(7), cause.getRetryAfter());
+        assertEquals("{}", cause.getResponseBody());
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void compressesRequestsAndDecodesResponses() throws Exception {
+        HttpClientPushServerResolver resolver = new HttpClientPushServerResolver();
+        resolver.setCompressionThreshold(0);
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/gzip-echo");
+
+        assertEquals("{\"ids\":[]}", resolver.postAsync(uri.toURL(), "{\"ids\":[]}").get(10, TimeUnit.SECONDS));
+        assertEquals("{\"ids\":[]}", lastRequestBody);
+    }
+
+    @Test
+    void sendsNotificationsAndGetsReceiptsFromTheMockServer() throws Exception {
+        try (MockExpoPushServer mockServer = new MockExpoPushServer()) {
+            PushClient mockClient = new PushClient(new HttpClientPushServerResolver());
+            mockClient.setBaseApiUrl(mockServer.getBaseApiUrl());
+            mockServer.unregister("ExpoPushToken[unregistered]");
+            List<ExpoPushTicket> tickets = mockClient.sendPushNotificationsAsync(Collections.singletonList(
+                    new ExpoPushMessage(Arrays.asList("ExpoPushToken[xxxxxxxxxxxxxxxxxxxxxx]", "ExpoPushToken[unregistered]"))))
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals(2, tickets.size());
+            assertEquals("ok", tickets.get(0).getStatus());
+            assertEquals("DeviceNotRegistered", tickets.get(1).getDetails().getError());
+
+            List<ExpoPushReceiept> receipts = mockClient.getPushNotificationReceiptsAsync(
+                    Collections.singletonList(tickets.get(0).id)).get(10, TimeUnit.SECONDS);
+            assertEquals(1, receipts.size());
+            assertEquals(tickets.get(0).id, receipts.get(0).id);
+            assertEquals("ok", receipts.get(0).getStatus());
+        }
+    }
+
+    @Test
+    void failsWhenTheMockServerThrottles() throws Exception {
+        try (MockExpoPushServer mockServer = new MockExpoPushServer()) {
+            PushClient mockClient = new PushClient(new HttpClientPushServerResolver());
+            mockClient.setBaseApiUrl(mockServer.getBaseApiUrl());
+            mockServer.setThrottleRate(1, Duration.ofSeconds(7));
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> mockClient.getPushNotificationReceiptsAsync(Collections.singletonList("id")).get(10, TimeUnit.SECONDS));
+            PushServerException cause = (PushServerException) e.getCause();
+            assertEquals(429, cause.getStatusCode());
+            assertEquals(Duration.ofSeconds(7), cause.getRetryAfter());
+        }
+    }
+
+    @Test
+    void exchangesCompressedBodiesWithTheMockServer() throws Exception {
+        try (MockExpoPushServer mockServer = new MockExpoPushServer()) {
+            HttpClientPushServerResolver compressing = new HttpClientPushServerResolver();
+            compressing.setCompressionThreshold(0);
+            PushClient mockClient = new PushClient(compressing);
+            mockClient.setBaseApiUrl(mockServer.getBaseApiUrl());
+            mockServer.setCompressResponses(true);
+
+            List<ExpoPushTicket> tickets = mockClient.sendPushNotificationsAsync(Collections.singletonList(
+                    new ExpoPushMessage("ExpoPushToken[xxxxxxxxxxxxxxxxxxxxxx]")))
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals(1, tickets.size());
+            assertEquals("ok", tickets.get(0).getStatus());
+            assertEquals(1, mockServer.getCompressedRequests());
+        }
+    }
+
+    @Test
+    void streamsUncompressedAndCompressedResponses() throws Exception {
+        HttpClientPushServerResolver resolver = new HttpClientPushServerResolver();
+        URI echo = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/gzip-echo");
+        URI send = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/push/send");
+
+        try (InputStream in = resolver.postAsyncStreaming(echo.toURL(), ByteBuffer.wrap("[1]".getBytes(StandardCharsets.UTF_8)))
+                .get(10, TimeUnit.SECONDS)) {
+            assertEquals("[1]", readBody(in));
+        }
+        try (InputStream in = resolver.postAsyncStreaming(send.toURL(), ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8)))
+                .get(10, TimeUnit.SECONDS)) {
+            assertTrue(readBody(in).contains(RECEIPT_ID));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}